@@ -0,0 +1,102 @@
+package com.rpal.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.rpal.cse.CSE;
+import com.rpal.cse.CSNode;
+import com.rpal.io.MemorySink;
+
+/*
+ * Heap allocated by the CSE machine per run of a program, read from gc.alloc.rate.norm.
+ * Each program takes 10000 turns of a loop, so the bytes per operation divided by 10000 are the bytes per turn.
+ * Run with -prof gc, or through main, which adds the profiler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AllocationBenchmark {
+
+    // A tail-recursive loop over integers
+    private static final String LOOP =
+            "let rec loop n acc = n eq 0 -> acc | loop (n-1) (acc + n) in Print (loop 10000 0)";
+
+    // Closures created, stored in a tuple and applied
+    private static final String CLOSURES =
+            "let rec mk n t = n eq 0 -> t | mk (n-1) (t aug (fn x. x + n))\n"
+            + "in let fs = mk 10000 nil\n"
+            + "in let rec app i acc = i eq 0 -> acc | app (i-1) (acc + (fs i) 1)\n"
+            + "in Print (app 10000 0)";
+
+    // Conditionals and comparisons on a tuple of pairs
+    private static final String TUPLES =
+            "let rec mk n t = n eq 0 -> t | mk (n-1) (t aug (n, n ls 5000))\n"
+            + "in let t = mk 10000 nil\n"
+            + "in let rec count i acc = i eq 0 -> acc | count (i-1) ((t i) 2 -> acc + 1 | acc)\n"
+            + "in Print (count 10000 0)";
+
+    // A string built with Conc and walked with Stern
+    private static final String STRINGS =
+            "let rec build n acc = n eq 0 -> acc | build (n-1) (acc @Conc 'a')\n"
+            + "in let rec count s n = s eq '' -> n | count (Stern s) (n+1)\n"
+            + "in Print (count (build 10000 '') 0)";
+
+    @Param({"loop", "closures", "tuples", "strings"})
+    public String program;
+
+    private List<List<CSNode>> deltas;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        switch (program) {
+            case "loop":
+                deltas = CSEBenchmark.compile(LOOP);
+                break;
+            case "closures":
+                deltas = CSEBenchmark.compile(CLOSURES);
+                break;
+            case "tuples":
+                deltas = CSEBenchmark.compile(TUPLES);
+                break;
+            default:
+                deltas = CSEBenchmark.compile(STRINGS);
+                break;
+        }
+    }
+
+    @Benchmark
+    public CSNode runCSE() {
+        CSE cse = new CSE(deltas);
+        cse.setOutput(new MemorySink());
+        cse.runCSE();
+        return cse.getResult();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AllocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,107 @@
+package com.rpal.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rpal.server.BatchEvaluator;
+import com.rpal.server.Evaluation;
+
+/*
+ * Evaluations per second over a corpus of programs, run one after the other or all at once on virtual threads.
+ * Every program of the corpus directory (files ending in _out are expected outputs and are skipped) is prepared
+ * once, then appears 'copies' times in each batch, sharing its control structures between the runs.
+ * The evaluations counter gives the evaluation rate, which should grow with the number of cores in concurrent mode.
+ *
+ *   java -jar rpal-bench/target/benchmarks.jar BatchBenchmark -p corpus=path/to/programs
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class BatchBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Corpus {
+        @Param({"rpal/src/main/java/test"})
+        public String corpus;
+
+        @Param({"1", "16"})
+        public int copies;
+
+        List<BatchEvaluator.Program> batch = new ArrayList<BatchEvaluator.Program>();
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(Paths.get(corpus))) {
+                files = listing.filter(Files::isRegularFile)
+                        .filter(file -> !file.getFileName().toString().endsWith("_out"))
+                        .sorted()
+                        .toList();
+            }
+            for (Path file : files) {
+                BatchEvaluator.Program program = BatchEvaluator.prepare(file.getFileName().toString(),
+                        new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                for (int i = 0; i < copies; i++) {
+                    batch.add(program);
+                }
+            }
+            if (batch.isEmpty()) {
+                throw new IllegalStateException("No programs in " + corpus);
+            }
+        }
+    }
+
+    // Number of programs evaluated, reported per second
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Evaluations {
+        public long evaluations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            evaluations = 0;
+        }
+    }
+
+    @Benchmark
+    public int sequential(Corpus corpus, Evaluations counter) {
+        int ok = 0;
+        for (BatchEvaluator.Program program : corpus.batch) {
+            if (BatchEvaluator.run(program).getStatus() == Evaluation.Status.OK) {
+                ok++;
+            }
+        }
+        counter.evaluations += corpus.batch.size();
+        return ok;
+    }
+
+    @Benchmark
+    public List<Evaluation> concurrent(Corpus corpus, Evaluations counter) {
+        List<Evaluation> evaluations = BatchEvaluator.runAll(corpus.batch);
+        counter.evaluations += evaluations.size();
+        return evaluations;
+    }
+}
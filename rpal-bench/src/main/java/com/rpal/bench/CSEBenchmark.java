@@ -0,0 +1,98 @@
+package com.rpal.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rpal.cse.CSE;
+import com.rpal.cse.CSNode;
+import com.rpal.lex.LexicalAnalyzer;
+import com.rpal.parser.AST;
+import com.rpal.parser.Parser;
+
+/*
+ * Evaluation speed of the CSE machine on small recursive programs.
+ * Control structures are built once; each operation runs a fresh machine over them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CSEBenchmark {
+
+    // test/towers
+    private static final String TOWERS =
+            "let rec T a b c N =\n"
+            + "   (N gr 1 -> T a c b (N-1) | '') @Conc\n"
+            + "   'Move ' @Conc\n"
+            + "   a @Conc\n"
+            + "   ' to ' @Conc\n"
+            + "   b @Conc\n"
+            + "   '\\n' @Conc\n"
+            + "   (N gr 1 -> T c b a (N-1) | '')\n"
+            + "\n"
+            + "in Print (T 'A' 'B' 'C' 4)\n";
+
+    private static final String FACTORIAL =
+            "let rec Fact N = N eq 0 -> 1 | N * Fact (N-1)\n"
+            + "in Print (Fact 20)\n";
+
+    @Param({"towers", "factorial"})
+    public String program;
+
+    private List<List<CSNode>> deltas;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        deltas = compile(program.equals("towers") ? TOWERS : FACTORIAL);
+
+        // programs print their result, keep it out of the benchmark log
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public CSE runCSE() {
+        CSE cse = new CSE(deltas);
+        cse.runCSE();
+        return cse;
+    }
+
+    static List<List<CSNode>> compile(String source) throws IOException {
+        File file = File.createTempFile("rpal-bench", ".rpal");
+        try {
+            Files.writeString(file.toPath(), source);
+            AST tree = new Parser(new LexicalAnalyzer(file).getTokenList()).buildAst();
+            tree.standardize();
+            return tree.getCS();
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.rpal.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rpal.lex.LexicalAnalyzer;
+import com.rpal.lex.Token;
+import com.rpal.parser.AST;
+import com.rpal.parser.Parser;
+
+/*
+ * Parse time of generated programs from a thousand to ten million tokens.
+ * The parser only moves a cursor over the token list, so the time should grow linearly with the token count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int tokenCount;
+
+    private List<Token> tokens;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        tokens = new LexicalAnalyzer(program(tokenCount)).getTokenList();
+    }
+
+    @Benchmark
+    public AST parse() {
+        return new Parser(tokens).buildAst();
+    }
+
+    /*
+     * Builds a program of about the given number of tokens: one tuple of arithmetic terms.
+     * Tuples and sums are parsed by loops rather than recursion, so the size is bounded only by memory.
+     */
+    static String program(int tokenCount) {
+        // every element "x + N * 2 ," is six tokens
+        int elements = Math.max(2, tokenCount / 6);
+        StringBuilder source = new StringBuilder(tokenCount * 3);
+        source.append("let x = 1 in Print (x + 0 * 2");
+        for (int i = 1; i < elements; i++) {
+            source.append(", x + ").append(i).append(" * 2");
+        }
+        source.append(")\n");
+        return source.toString();
+    }
+}
@@ -0,0 +1,130 @@
+package com.rpal.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.rpal.cse.CSE;
+import com.rpal.cse.CSNode;
+import com.rpal.io.MemorySink;
+import com.rpal.lex.LexicalAnalyzer;
+import com.rpal.lex.Token;
+import com.rpal.parser.AST;
+import com.rpal.parser.Parser;
+
+/*
+ * Throughput of each phase of the interpreter on generated programs (see ProgramGenerator).
+ * Each phase gets the output of the previous ones prepared outside the measurement. Standardizing and
+ * generating control structures change the tree they work on, so those get a fresh tree per operation.
+ *
+ * Run with the GC profiler to get the bytes allocated per operation (gc.alloc.rate.norm):
+ *   java -jar rpal-bench/target/benchmarks.jar PhaseBenchmark -prof gc
+ * or run this class's main method, which adds the profiler itself.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// trees are walked recursively, so the larger programs need a larger stack
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Xss256m"})
+public class PhaseBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Program {
+        @Param({"DEEP_RECURSION", "WIDE_TUPLE", "LONG_STRING", "MANY_BINDINGS"})
+        public ProgramGenerator.Shape shape;
+
+        @Param({"100", "1000", "10000"})
+        public int size;
+
+        String source;
+        List<Token> tokens;
+        List<List<CSNode>> deltas;
+        MemorySink out = new MemorySink();
+
+        @Setup(Level.Trial)
+        public void setup() {
+            source = ProgramGenerator.generate(shape, size);
+            tokens = new LexicalAnalyzer(source).getTokenList();
+            AST tree = new Parser(tokens).buildAst();
+            tree.standardize();
+            deltas = tree.getCS();
+        }
+    }
+
+    // A freshly parsed tree, for standardize
+    @State(Scope.Thread)
+    public static class ParsedTree {
+        AST tree;
+
+        @Setup(Level.Invocation)
+        public void setup(Program program) {
+            tree = new Parser(program.tokens).buildAst();
+        }
+    }
+
+    // A freshly standardized tree, for getCS
+    @State(Scope.Thread)
+    public static class StandardizedTree {
+        AST tree;
+
+        @Setup(Level.Invocation)
+        public void setup(Program program) {
+            tree = new Parser(program.tokens).buildAst();
+            tree.standardize();
+        }
+    }
+
+    @Benchmark
+    public List<Token> lex(Program program) {
+        return new LexicalAnalyzer(program.source).getTokenList();
+    }
+
+    @Benchmark
+    public AST parse(Program program) {
+        return new Parser(program.tokens).buildAst();
+    }
+
+    @Benchmark
+    public AST standardize(ParsedTree parsed) {
+        parsed.tree.standardize();
+        return parsed.tree;
+    }
+
+    @Benchmark
+    public List<List<CSNode>> controlStructures(StandardizedTree standardized) {
+        return standardized.tree.getCS();
+    }
+
+    @Benchmark
+    public CSNode runCSE(Program program) {
+        CSE machine = new CSE(program.deltas);
+        program.out.reset();
+        machine.setOutput(program.out);
+        machine.runCSE();
+        return machine.getResult();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PhaseBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,65 @@
+package com.rpal.bench;
+
+/*
+ * Synthetic RPAL programs of a given size, one for each kind of load the interpreter has to handle.
+ * Every program prints a single short value, so printing does not weigh on the measurements.
+ */
+public final class ProgramGenerator {
+
+    public enum Shape {
+        // a function that recurses 'size' deep without tail calls
+        DEEP_RECURSION,
+        // a tuple literal of 'size' elements, indexed and measured
+        WIDE_TUPLE,
+        // a string literal of 'size' characters, walked with Stern and rebuilt with Conc
+        LONG_STRING,
+        // 'size' simultaneous definitions, summed in the body
+        MANY_BINDINGS
+    }
+
+    private ProgramGenerator() {
+    }
+
+    public static String generate(Shape shape, int size) {
+        StringBuilder source = new StringBuilder();
+        switch (shape) {
+            case DEEP_RECURSION:
+                source.append("let rec depth n = n eq 0 -> 0 | 1 + depth (n-1)\n")
+                        .append("in Print (depth ").append(size).append(")\n");
+                break;
+
+            case WIDE_TUPLE:
+                source.append("let t = (0");
+                for (int i = 1; i < size; i++) {
+                    source.append(", ").append(i);
+                }
+                source.append(")\nin Print (Order t + t 1 + t ").append(size).append(")\n");
+                break;
+
+            case LONG_STRING:
+                source.append("let rec copy s acc = s eq '' -> acc | copy (Stern s) (acc @Conc Stem s)\n")
+                        .append("in let s = '");
+                for (int i = 0; i < size; i++) {
+                    source.append((char) ('a' + i % 26));
+                }
+                source.append("'\nin Print (copy s '' eq s)\n");
+                break;
+
+            case MANY_BINDINGS:
+                source.append("let x0 = 0");
+                for (int i = 1; i < size; i++) {
+                    source.append("\n and x").append(i).append(" = ").append(i);
+                }
+                source.append("\nin Print (x0");
+                for (int i = 1; i < size; i++) {
+                    source.append(" + x").append(i);
+                }
+                source.append(")\n");
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+        return source.toString();
+    }
+}
@@ -0,0 +1,278 @@
+package com.rpal.cache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.rpal.cse.Builtin;
+import com.rpal.cse.Builtins;
+import com.rpal.cse.CSE_Exception;
+import com.rpal.cse.CSNode;
+import com.rpal.cse.Identifier;
+import com.rpal.cse.Instruction;
+import com.rpal.cse.Lambda;
+import com.rpal.cse.TruthValue;
+import com.rpal.cse.TupleValue;
+
+/*
+ * Control structures of a program read from its binary form (see ProgramFormat), usually a memory-mapped file.
+ * Opening a program only checks its header and offset tables. Each delta is decoded the first time the CSE machine
+ * asks for it, and each constant the first time a delta uses it, so a program starts running without decoding
+ * the parts it does not reach. Decoded deltas are kept, and may be shared by machines running on other threads.
+ */
+public final class MappedProgram extends AbstractList<List<CSNode>> implements RandomAccess {
+    private static final long MAP_THRESHOLD = 1L << 20;     // Size from which files are mapped rather than read
+
+    private final ByteBuffer bytes;                         // Whole program, only read with absolute gets
+    private final int constantCount;
+    private final int deltaCount;
+    private final Builtins builtins;    // Where unbound identifiers are resolved
+    private final String[] constants;   // Constants decoded so far, by index
+    private final Decoded[] deltas;     // Deltas decoded so far, by number
+
+    /*
+     * A decoded delta. Its nodes are only reached through a final field, so a thread that finds the delta
+     * in the array without synchronizing still sees them fully built.
+     */
+    private static final class Decoded {
+        private final List<CSNode> nodes;
+
+        private Decoded(List<CSNode> nodes) {
+            this.nodes = nodes;
+        }
+    }
+
+    private MappedProgram(ByteBuffer bytes, int constantCount, int deltaCount, Builtins builtins) {
+        this.bytes = bytes;
+        this.constantCount = constantCount;
+        this.deltaCount = deltaCount;
+        this.builtins = builtins;
+        this.constants = new String[constantCount];
+        this.deltas = new Decoded[deltaCount];
+    }
+
+    /*
+     * Opens a program file: a large file is mapped, and the mapping stays valid after the file is closed (or deleted).
+     * Mapping a file sets up more of the JDK than a small program takes to read, so a small file is read into memory.
+     */
+    public static MappedProgram open(Path file) throws IOException {
+        return open(file, Builtins.standard());
+    }
+
+    /*
+     * Opens a program file, resolving the names of built-in functions in the given registry
+     */
+    public static MappedProgram open(Path file, Builtins builtins) throws IOException {
+        File small = file.toFile();
+        if (small.length() < MAP_THRESHOLD) {
+            try (FileInputStream in = new FileInputStream(small)) {
+                return wrap(ByteBuffer.wrap(in.readAllBytes()), builtins);
+            } catch (FileNotFoundException e) {
+                throw new NoSuchFileException(file.toString());
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), builtins);
+        }
+    }
+
+    /*
+     * Reads a program held in a buffer, from its start to its limit.
+     * Throws IOException if the buffer does not hold a program of this version of the format.
+     */
+    public static MappedProgram wrap(ByteBuffer buffer) throws IOException {
+        return wrap(buffer, Builtins.standard());
+    }
+
+    /*
+     * Reads a program held in a buffer, resolving the names of built-in functions in the given registry
+     */
+    public static MappedProgram wrap(ByteBuffer buffer, Builtins builtins) throws IOException {
+        ByteBuffer bytes = buffer.slice();
+        if (bytes.limit() < ProgramFormat.HEADER_SIZE || bytes.getInt(0) != ProgramFormat.MAGIC) {
+            throw new IOException("Not a compiled RPAL program");
+        }
+        short version = bytes.getShort(4);
+        if (version != ProgramFormat.VERSION) {
+            throw new IOException("Unsupported compiled program version: " + version);
+        }
+        int constantCount = bytes.getInt(8);
+        int deltaCount = bytes.getInt(12);
+        long tables = ProgramFormat.HEADER_SIZE + 4L * (constantCount + 1) + 4L * (deltaCount + 1);
+        if (constantCount < 0 || deltaCount < 1 || tables > bytes.limit()) {
+            throw new IOException("Damaged compiled program");
+        }
+        // offsets must never decrease and must stay within the program
+        int previous = (int) tables;
+        for (int i = 0; i < constantCount + deltaCount + 2; i++) {
+            int offset = bytes.getInt(ProgramFormat.HEADER_SIZE + 4 * i);
+            if (offset < previous || offset > bytes.limit()) {
+                throw new IOException("Damaged compiled program");
+            }
+            previous = offset;
+        }
+        return new MappedProgram(bytes, constantCount, deltaCount, builtins);
+    }
+
+    @Override
+    public int size() {
+        return deltaCount;
+    }
+
+    /*
+     * Delta of the given number, decoded on first use
+     */
+    @Override
+    public List<CSNode> get(int delta_no) {
+        Decoded delta = deltas[delta_no];
+        if (delta == null) {
+            // two threads may both decode a delta, each machine then runs nodes equal to the other's
+            delta = new Decoded(decodeDelta(delta_no));
+            deltas[delta_no] = delta;
+        }
+        return delta.nodes;
+    }
+
+    private List<CSNode> decodeDelta(int delta_no) {
+        Cursor in = new Cursor(deltaOffset(delta_no), deltaOffset(delta_no + 1));
+        try {
+            int count = in.varint();
+            List<CSNode> delta = new ArrayList<CSNode>(Math.min(count, in.end - in.pos));
+            for (int i = 0; i < count; i++) {
+                delta.add(decodeNode(in));
+            }
+            return delta;
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+            throw new CSE_Exception("Damaged compiled program: delta " + delta_no);
+        }
+    }
+
+    private CSNode decodeNode(Cursor in) {
+        byte tag = in.tag();
+        switch (tag) {
+            case ProgramFormat.INTEGER:
+                return CSNode.of("INTEGER", constant(in.varint()));
+            case ProgramFormat.STRING:
+                return CSNode.of("STRING", constant(in.varint()));
+            case ProgramFormat.TRUE:
+                return TruthValue.TRUE;
+            case ProgramFormat.FALSE:
+                return TruthValue.FALSE;
+            case ProgramFormat.NIL:
+                return TupleValue.NIL;
+            case ProgramFormat.DUMMY:
+                return CSNode.of("DUMMY", "dummy");
+            case ProgramFormat.Y:
+                return CSNode.of("Y", "Y");
+            case ProgramFormat.GAMMA:
+                return Instruction.GAMMA;
+            case ProgramFormat.NOT:
+                return CSNode.of("not", "not");
+            case ProgramFormat.NEG:
+                return CSNode.of("neg", "neg");
+            case ProgramFormat.OPERATOR:
+                return CSNode.of("OPERATOR", constant(in.varint()));
+            case ProgramFormat.IDENTIFIER: {
+                Identifier node = (Identifier) CSNode.of("IDENTIFIER", constant(in.varint()));
+                Builtin builtin = builtins.lookUp(node.getName());
+                return (builtin == null) ? node : node.withBuiltin(builtin);
+            }
+            case ProgramFormat.BOUND: {
+                String name = constant(in.varint());
+                int depth = in.varint();
+                return new Identifier(name, depth, in.varint());
+            }
+            case ProgramFormat.LAMBDA:
+            case ProgramFormat.LAMBDA_TUPLE: {
+                int body = in.varint();
+                int count = in.varint();
+                List<String> variables = new ArrayList<String>(Math.min(count, in.end - in.pos));
+                for (int i = 0; i < count; i++) {
+                    variables.add(constant(in.varint()));
+                }
+                return new Lambda(variables, checkDelta(body), tag == ProgramFormat.LAMBDA_TUPLE);
+            }
+            case ProgramFormat.BETA: {
+                int then_no = checkDelta(in.varint());
+                return Instruction.beta(then_no, checkDelta(in.varint()));
+            }
+            case ProgramFormat.TAU:
+                return Instruction.tau(in.varint());
+            default:
+                throw new CSE_Exception("Damaged compiled program: unknown node tag " + tag);
+        }
+    }
+
+    private String constant(int index) {
+        if (index >= constantCount) {
+            throw new IndexOutOfBoundsException("Constant " + index);
+        }
+        String text = constants[index];
+        if (text == null) {
+            int start = bytes.getInt(ProgramFormat.HEADER_SIZE + 4 * index);
+            int end = bytes.getInt(ProgramFormat.HEADER_SIZE + 4 * (index + 1));
+            byte[] utf8 = new byte[end - start];
+            bytes.get(start, utf8);
+            text = new String(utf8, StandardCharsets.UTF_8);
+            constants[index] = text;
+        }
+        return text;
+    }
+
+    private int checkDelta(int delta_no) {
+        if (delta_no >= deltaCount) {
+            throw new IndexOutOfBoundsException("Delta " + delta_no);
+        }
+        return delta_no;
+    }
+
+    private int deltaOffset(int delta_no) {
+        return bytes.getInt(ProgramFormat.HEADER_SIZE + 4 * (constantCount + 1) + 4 * delta_no);
+    }
+
+    /*
+     * Position within the bytes of one delta
+     */
+    private final class Cursor {
+        private int pos;
+        private final int end;
+
+        private Cursor(int start, int end) {
+            this.pos = start;
+            this.end = end;
+        }
+
+        private byte tag() {
+            if (pos >= end) {
+                throw new IndexOutOfBoundsException("End of delta");
+            }
+            return bytes.get(pos++);
+        }
+
+        private int varint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = tag();
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0) {
+                        throw new IndexOutOfBoundsException("Negative value");
+                    }
+                    return value;
+                }
+            }
+            throw new IndexOutOfBoundsException("Varint too long");
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.rpal.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import com.rpal.cse.Builtins;
+import com.rpal.cse.CSNode;
+import com.rpal.lex.LexicalAnalyzer;
+import com.rpal.parser.AST;
+import com.rpal.parser.Parser;
+
+/*
+ * Cache of the control structures of programs, keyed by the SHA-256 hash of their source, so that running
+ * a program again skips lexing, parsing, standardizing and control structure generation.
+ * The memory tier keeps the most recently used programs up to a number of entries. The optional disk tier keeps
+ * one file per program (see ProgramFormat) in a directory, up to a total size, evicting the least recently used
+ * files first. Control structures are never modified by the CSE machine, so a cached program is handed
+ * to every caller as it is. Disk errors are not reported: the cache is only an optimization, and a file
+ * that cannot be read or written counts as a miss. Programs are generated, and read from disk, with the built-ins
+ * of the cache's registry.
+ */
+public class ProgramCache {
+    public static final int DEFAULT_MEMORY_ENTRIES = 64;
+    public static final long DEFAULT_DISK_BYTES = 64L << 20;
+    private static final String SUFFIX = ".cs";
+
+    private final LinkedHashMap<String, List<List<CSNode>>> memory;   // Programs by key, least recently used first
+    private final Path directory;       // Directory of the disk tier (null if there is none)
+    private final long diskBytes;       // Largest total size of the files of the disk tier
+    private final Builtins builtins;    // Where the names of built-in functions are resolved
+
+    private long memoryHits;            // Lookups answered from memory
+    private long diskHits;              // Lookups answered from disk
+    private long misses;                // Lookups answered by neither tier
+    private long evictions;             // Programs dropped from either tier to stay within its bound
+
+    /*
+     * Cache with a memory tier only
+     */
+    public ProgramCache(int memoryEntries) {
+        this(memoryEntries, null, 0);
+    }
+
+    /*
+     * Cache with a memory tier only, for programs calling the built-ins of the given registry
+     */
+    public ProgramCache(int memoryEntries, Builtins builtins) {
+        this(memoryEntries, null, 0, builtins);
+    }
+
+    /*
+     * Cache with a memory tier of memoryEntries programs and a disk tier of diskBytes in the given directory
+     */
+    public ProgramCache(int memoryEntries, Path directory, long diskBytes) {
+        this(memoryEntries, directory, diskBytes, Builtins.standard());
+    }
+
+    /*
+     * Cache with both tiers, for programs calling the built-ins of the given registry
+     */
+    public ProgramCache(int memoryEntries, Path directory, long diskBytes, Builtins builtins) {
+        this.directory = directory;
+        this.diskBytes = diskBytes;
+        this.builtins = builtins;
+        this.memory = new LinkedHashMap<String, List<List<CSNode>>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<List<CSNode>>> eldest) {
+                if (size() > memoryEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /*
+     * Directory of the disk tier used by myrpal: the rpal.cache.dir system property, or .cache/rpal in the home directory
+     */
+    public static Path defaultDirectory() {
+        String configured = System.getProperty("rpal.cache.dir");
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        return Paths.get(System.getProperty("user.home"), ".cache", "rpal");
+    }
+
+    /*
+     * Key of a program: the SHA-256 hash of its source, in hexadecimal
+     */
+    public static String keyOf(byte[] source) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(source));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String keyOf(String source) {
+        return keyOf(source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /*
+     * Control structures of a program, from the cache if it holds them, otherwise built from the source and cached.
+     * Throws ParserException if the program has a syntax error (programs with errors are not cached).
+     */
+    public List<List<CSNode>> load(String source) {
+        String key = keyOf(source);
+        List<List<CSNode>> deltas = get(key);
+        if (deltas == null) {
+            deltas = compile(source, builtins);
+            put(key, deltas);
+        }
+        return deltas;
+    }
+
+    /*
+     * Control structures of a program, without the cache (throws ParserException if it has a syntax error)
+     */
+    public static List<List<CSNode>> compile(String source) {
+        return compile(source, Builtins.standard());
+    }
+
+    /*
+     * Control structures of a program, with the names of built-in functions resolved in the given registry
+     */
+    public static List<List<CSNode>> compile(String source, Builtins builtins) {
+        AST tree = new Parser(new LexicalAnalyzer(source).getTokenList()).buildAst();
+        tree.standardize();
+        return tree.getCS(builtins);
+    }
+
+    /*
+     * Cached control structures of the program with the given key, or null if neither tier holds them.
+     * A program found on disk is brought into memory.
+     */
+    public synchronized List<List<CSNode>> get(String key) {
+        List<List<CSNode>> deltas = memory.get(key);
+        if (deltas != null) {
+            memoryHits++;
+            return deltas;
+        }
+        deltas = readFile(key);
+        if (deltas != null) {
+            diskHits++;
+            memory.put(key, deltas);
+            return deltas;
+        }
+        misses++;
+        return null;
+    }
+
+    /*
+     * Caches the control structures of the program with the given key in both tiers
+     */
+    public synchronized void put(String key, List<List<CSNode>> deltas) {
+        memory.put(key, deltas);
+        if (directory != null) {
+            writeFile(key, deltas);
+            trimDisk();
+        }
+    }
+
+    public synchronized long getMemoryHits() {
+        return memoryHits;
+    }
+
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /*
+     * Number of programs in the memory tier
+     */
+    public synchronized int size() {
+        return memory.size();
+    }
+
+    private List<List<CSNode>> readFile(String key) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(key + SUFFIX);
+        try {
+            List<List<CSNode>> deltas = MappedProgram.open(file, builtins);
+            // the modification time orders the files for eviction
+            file.toFile().setLastModified(System.currentTimeMillis());
+            return deltas;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // written by another version, or damaged: it will be replaced
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    /*
+     * Writes to a temporary file first, so that a reader never sees a partly written program
+     */
+    private void writeFile(String key, List<List<CSNode>> deltas) {
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, key, ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                ProgramWriter.write(deltas, out);
+            }
+            Files.move(temp, directory.resolve(key + SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+        }
+    }
+
+    /*
+     * A file of the disk tier, as listed when trimming it
+     */
+    private static final class DiskEntry {
+        private final Path file;
+        private final long modified;    // Last use, in milliseconds
+        private final long size;
+
+        private DiskEntry(Path file, long modified, long size) {
+            this.file = file;
+            this.modified = modified;
+            this.size = size;
+        }
+    }
+
+    /*
+     * Deletes the least recently used files until the disk tier fits in its size
+     */
+    private void trimDisk() {
+        List<DiskEntry> entries = new ArrayList<DiskEntry>();
+        long total = 0;
+        try (Stream<Path> listing = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) listing::iterator) {
+                if (file.getFileName().toString().endsWith(SUFFIX)) {
+                    DiskEntry entry = new DiskEntry(file, Files.getLastModifiedTime(file).toMillis(), Files.size(file));
+                    entries.add(entry);
+                    total += entry.size;
+                }
+            }
+        } catch (IOException e) {
+            return;
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.modified));
+        for (DiskEntry entry : entries) {
+            if (total <= diskBytes) {
+                break;
+            }
+            if (deleteQuietly(entry.file)) {
+                total -= entry.size;
+                evictions++;
+            }
+        }
+    }
+
+    private static boolean deleteQuietly(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.rpal.cache;
+
+/*
+ * Binary form of the control structures of a program, as written by ProgramWriter and read by MappedProgram.
+ * Fixed size fields are big-endian; counts, indexes and delta numbers are unsigned LEB128 varints.
+ *
+ *   header:     int MAGIC, short VERSION, short flags (0), int constant count, int delta count
+ *   offsets:    int[constant count + 1] start of each constant (the last one is the end of the pool),
+ *               int[delta count + 1] start of each delta (the last one is the end of the file),
+ *               all from the start of the file
+ *   constants:  the UTF-8 bytes of each string, one after the other (names, string literals, integer texts)
+ *   delta:      varint node count, then each node as a tag byte and its operands
+ *
+ * Each delta can be decoded on its own, so a reader only decodes the deltas a program runs, when it first runs them.
+ * Only what the CSE machine needs is kept: the symbol ids used to resolve identifiers are not, as identifiers
+ * are stored with their lexical addresses already resolved.
+ * A reader rejects any other VERSION. It changes whenever the meaning of the bytes changes.
+ */
+final class ProgramFormat {
+    static final int MAGIC = 0x52504C43;        // "RPLC"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    // Node tags, with their operands
+    static final byte INTEGER = 1;              // constant (the text of the number)
+    static final byte STRING = 2;               // constant
+    static final byte TRUE = 3;
+    static final byte FALSE = 4;
+    static final byte NIL = 5;
+    static final byte DUMMY = 6;
+    static final byte Y = 7;
+    static final byte GAMMA = 8;
+    static final byte NOT = 9;
+    static final byte NEG = 10;
+    static final byte OPERATOR = 11;            // constant (the operator name)
+    static final byte IDENTIFIER = 12;          // constant (a built-in or undefined name)
+    static final byte BOUND = 13;               // constant (the name), depth, slot
+    static final byte LAMBDA = 14;              // delta, variable count, constant per variable
+    static final byte LAMBDA_TUPLE = 15;        // same, for a lambda over a tuple of variables
+    static final byte BETA = 16;                // then delta, else delta
+    static final byte TAU = 17;                 // element count
+
+    private ProgramFormat() {
+    }
+}
@@ -0,0 +1,186 @@
+package com.rpal.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.rpal.cse.CSNode;
+import com.rpal.cse.Lambda;
+
+/*
+ * Writes the control structures of a program in the binary form described in ProgramFormat.
+ * Every distinct string is stored once in the constant pool, and nodes refer to it by index.
+ */
+public class ProgramWriter {
+    private final List<byte[]> constants = new ArrayList<byte[]>();               // UTF-8 of each constant, by index
+    private final Map<String, Integer> constantIndex = new HashMap<String, Integer>();
+    private final ByteArrayOutputStream code = new ByteArrayOutputStream();         // Encoded deltas, one after the other
+    private final int[] deltaStarts;                                                // Start of each delta within code
+
+    private ProgramWriter(int deltaCount) {
+        deltaStarts = new int[deltaCount + 1];
+    }
+
+    /*
+     * Writes a program to a stream (which is not closed).
+     * Throws IllegalArgumentException for a node that cannot appear in generated control structures.
+     */
+    public static void write(List<List<CSNode>> deltas, OutputStream out) throws IOException {
+        ProgramWriter writer = new ProgramWriter(deltas.size());
+        for (int delta_no = 0; delta_no < deltas.size(); delta_no++) {
+            writer.deltaStarts[delta_no] = writer.code.size();
+            writer.writeDelta(deltas.get(delta_no));
+        }
+        writer.deltaStarts[deltas.size()] = writer.code.size();
+        writer.finish(out);
+    }
+
+    /*
+     * A program in binary form
+     */
+    public static byte[] toBytes(List<List<CSNode>> deltas) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            write(deltas, bytes);
+        } catch (IOException e) {
+            // a ByteArrayOutputStream does not fail
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeDelta(List<CSNode> delta) {
+        writeVarint(delta.size());
+        for (CSNode node : delta) {
+            writeNode(node);
+        }
+    }
+
+    private void writeNode(CSNode node) {
+        switch (node.getOpcode()) {
+            case INTEGER:
+                code.write(ProgramFormat.INTEGER);
+                writeConstant(node.getName());
+                break;
+            case STRING:
+                code.write(ProgramFormat.STRING);
+                writeConstant(node.getName());
+                break;
+            case TRUTHVALUE:
+                code.write(node.getName().equals("true") ? ProgramFormat.TRUE : ProgramFormat.FALSE);
+                break;
+            case NIL:
+                code.write(ProgramFormat.NIL);
+                break;
+            case DUMMY:
+                code.write(ProgramFormat.DUMMY);
+                break;
+            case Y:
+                code.write(ProgramFormat.Y);
+                break;
+            case GAMMA:
+                code.write(ProgramFormat.GAMMA);
+                break;
+            case NOT:
+                code.write(ProgramFormat.NOT);
+                break;
+            case NEG:
+                code.write(ProgramFormat.NEG);
+                break;
+            case ADD: case SUBTRACT: case MULTIPLY: case DIVIDE: case POWER:
+            case EQ: case NE: case LS: case GR: case LE: case GE: case OR: case AND: case AUG:
+                code.write(ProgramFormat.OPERATOR);
+                writeConstant(node.getName());
+                break;
+            case IDENTIFIER:
+                if (node.getDepth() >= 0) {
+                    code.write(ProgramFormat.BOUND);
+                    writeConstant(node.getName());
+                    writeVarint(node.getDepth());
+                    writeVarint(node.getSlot());
+                } else {
+                    code.write(ProgramFormat.IDENTIFIER);
+                    writeConstant(node.getName());
+                }
+                break;
+            case LAMBDA:
+                code.write(((Lambda) node).bindsTuple() ? ProgramFormat.LAMBDA_TUPLE : ProgramFormat.LAMBDA);
+                writeVarint(node.getLambdano());
+                writeVarint(node.getLambdavar().size());
+                for (String variable : node.getLambdavar()) {
+                    writeConstant(variable);
+                }
+                break;
+            case BETA:
+                code.write(ProgramFormat.BETA);
+                writeVarint(node.getThenno());
+                writeVarint(node.getElseno());
+                break;
+            case TAU:
+                code.write(ProgramFormat.TAU);
+                writeVarint(node.getTauno());
+                break;
+            default:
+                throw new IllegalArgumentException("Cannot write a " + node.getType() + " node");
+        }
+    }
+
+    private void writeConstant(String text) {
+        Integer index = constantIndex.get(text);
+        if (index == null) {
+            index = constants.size();
+            constants.add(text.getBytes(StandardCharsets.UTF_8));
+            constantIndex.put(text, index);
+        }
+        writeVarint(index);
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7f) != 0) {
+            code.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        code.write(value);
+    }
+
+    /*
+     * Writes the header, the offset tables, the constant pool and the deltas
+     */
+    private void finish(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        int deltaCount = deltaStarts.length - 1;
+        out.writeInt(ProgramFormat.MAGIC);
+        out.writeShort(ProgramFormat.VERSION);
+        out.writeShort(0);
+        out.writeInt(constants.size());
+        out.writeInt(deltaCount);
+
+        long position = ProgramFormat.HEADER_SIZE + 4L * (constants.size() + 1) + 4L * (deltaCount + 1);
+        for (byte[] constant : constants) {
+            out.writeInt(checkedOffset(position));
+            position += constant.length;
+        }
+        out.writeInt(checkedOffset(position));
+        for (int start : deltaStarts) {
+            out.writeInt(checkedOffset(position + start));
+        }
+        for (byte[] constant : constants) {
+            out.write(constant);
+        }
+        code.writeTo(out);
+        out.flush();
+    }
+
+    private static int checkedOffset(long position) {
+        if (position > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Program too large to write");
+        }
+        return (int) position;
+    }
+}
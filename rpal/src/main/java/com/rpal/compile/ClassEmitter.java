@@ -0,0 +1,287 @@
+package com.rpal.compile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Minimal writer of JVM class files, covering what the delta compiler emits:
+ * a constant pool, fields, and methods made of straight-line code.
+ * The code never branches, so no StackMapTable is needed and every method is verifiable as written.
+ */
+public final class ClassEmitter {
+    // Class file version of Java 8
+    private static final int MAJOR_VERSION = 52;
+
+    // Access flags
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_PRIVATE = 0x0002;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SUPER = 0x0020;
+
+    // Constant pool tags
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    // Instructions used by the compiler
+    public static final int ICONST_0 = 0x03;
+    public static final int BIPUSH = 0x10;
+    public static final int SIPUSH = 0x11;
+    public static final int LDC_W = 0x13;
+    public static final int ALOAD_0 = 0x2a;
+    public static final int ALOAD_1 = 0x2b;
+    public static final int AALOAD = 0x32;
+    public static final int RETURN = 0xb1;
+    public static final int GETSTATIC = 0xb2;
+    public static final int GETFIELD = 0xb4;
+    public static final int PUTFIELD = 0xb5;
+    public static final int INVOKEVIRTUAL = 0xb6;
+    public static final int INVOKESPECIAL = 0xb7;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();  // Constant pool entries
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private final Map<String, Integer> poolIndex = new HashMap<String, Integer>();  // Entries already in the pool
+    private int poolCount = 1;              // Constant pool indices start at 1
+
+    private final int thisClass;            // Pool index of this class
+    private final int superClass;           // Pool index of the super class
+    private final int[] interfaces;         // Pool indices of the implemented interfaces
+    private final List<byte[]> fields = new ArrayList<byte[]>();
+    private final List<Code> methods = new ArrayList<Code>();
+
+    public ClassEmitter(String name, String superName, String... interfaceNames) {
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+        interfaces = new int[interfaceNames.length];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaces[i] = classRef(interfaceNames[i]);
+        }
+    }
+
+    /*
+     * Body of a method being emitted
+     */
+    public class Code {
+        private final int access;
+        private final int name;             // Pool index of the method name
+        private final int descriptor;       // Pool index of the method descriptor
+        private final int maxStack;
+        private final int maxLocals;
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+
+        private Code(int access, String name, String descriptor, int maxStack, int maxLocals) {
+            this.access = access;
+            this.name = utf8(name);
+            this.descriptor = utf8(descriptor);
+            this.maxStack = maxStack;
+            this.maxLocals = maxLocals;
+        }
+
+        public Code op(int opcode) {
+            code.write(opcode);
+            return this;
+        }
+
+        public Code op(int opcode, int operand) {
+            code.write(opcode);
+            code.write(operand >>> 8);
+            code.write(operand);
+            return this;
+        }
+
+        /*
+         * Pushes an int constant with the shortest instruction that holds it
+         */
+        public Code pushInt(int value) {
+            if (value >= -1 && value <= 5) {
+                code.write(ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                code.write(BIPUSH);
+                code.write(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                op(SIPUSH, value);
+            } else {
+                op(LDC_W, integer(value));
+            }
+            return this;
+        }
+
+        public int size() {
+            return code.size();
+        }
+    }
+
+    /*
+     * Starts a method; its code is written through the returned object
+     */
+    public Code method(int access, String name, String descriptor, int maxStack, int maxLocals) {
+        Code method = new Code(access, name, descriptor, maxStack, maxLocals);
+        methods.add(method);
+        return method;
+    }
+
+    public void field(int access, String name, String descriptor) {
+        ByteArrayOutputStream field = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(field);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(0);              // no attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        fields.add(field.toByteArray());
+    }
+
+    public int utf8(String value) {
+        Integer index = poolIndex.get("U" + value);
+        if (index == null) {
+            index = newEntry("U" + value);
+            write(CONSTANT_UTF8);
+            try {
+                poolOut.writeUTF(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return index;
+    }
+
+    public int integer(int value) {
+        Integer index = poolIndex.get("I" + value);
+        if (index == null) {
+            index = newEntry("I" + value);
+            write(CONSTANT_INTEGER);
+            writeInt(value);
+        }
+        return index;
+    }
+
+    public int classRef(String internalName) {
+        Integer index = poolIndex.get("C" + internalName);
+        if (index == null) {
+            int name = utf8(internalName);
+            index = newEntry("C" + internalName);
+            write(CONSTANT_CLASS);
+            writeShort(name);
+        }
+        return index;
+    }
+
+    public int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_FIELDREF, owner, name, descriptor);
+    }
+
+    public int methodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_METHODREF, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        String key = tag + owner + "." + name + descriptor;
+        Integer index = poolIndex.get(key);
+        if (index == null) {
+            int ownerIndex = classRef(owner);
+            int nameAndType = nameAndType(name, descriptor);
+            index = newEntry(key);
+            write(tag);
+            writeShort(ownerIndex);
+            writeShort(nameAndType);
+        }
+        return index;
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        String key = "N" + name + descriptor;
+        Integer index = poolIndex.get(key);
+        if (index == null) {
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            index = newEntry(key);
+            write(CONSTANT_NAME_AND_TYPE);
+            writeShort(nameIndex);
+            writeShort(descriptorIndex);
+        }
+        return index;
+    }
+
+    private int newEntry(String key) {
+        if (poolCount >= 0xFFFF) {
+            throw new IllegalStateException("Constant pool is full");
+        }
+        int index = poolCount++;
+        poolIndex.put(key, index);
+        return index;
+    }
+
+    /*
+     * Assembles the class file
+     */
+    public byte[] toByteArray() {
+        int codeName = utf8("Code");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(poolCount);
+            pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (int i : interfaces) {
+                out.writeShort(i);
+            }
+            out.writeShort(fields.size());
+            for (byte[] field : fields) {
+                out.write(field);
+            }
+            out.writeShort(methods.size());
+            for (Code method : methods) {
+                if (method.code.size() > 0xFFFF) {
+                    throw new IllegalStateException("Method too large");
+                }
+                out.writeShort(method.access);
+                out.writeShort(method.name);
+                out.writeShort(method.descriptor);
+                out.writeShort(1);                          // one attribute: Code
+                out.writeShort(codeName);
+                out.writeInt(12 + method.code.size());      // attribute length
+                out.writeShort(method.maxStack);
+                out.writeShort(method.maxLocals);
+                out.writeInt(method.code.size());
+                method.code.writeTo(out);
+                out.writeShort(0);                          // no exception handlers
+                out.writeShort(0);                          // no attributes
+            }
+            out.writeShort(0);                              // no class attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void write(int b) {
+        pool.write(b);
+    }
+
+    private void writeShort(int s) {
+        pool.write(s >>> 8);
+        pool.write(s);
+    }
+
+    private void writeInt(int i) {
+        writeShort(i >>> 16);
+        writeShort(i & 0xFFFF);
+    }
+}
@@ -0,0 +1,12 @@
+package com.rpal.compile;
+
+/*
+ * Class to generate Exceptions that happen while compiling control structures to JVM classes
+ */
+public class CompileException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public CompileException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,210 @@
+package com.rpal.compile;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+import com.rpal.compile.ClassEmitter.Code;
+import com.rpal.cse.CSNode;
+import com.rpal.cse.CompiledDelta;
+
+import static com.rpal.compile.ClassEmitter.*;
+
+
+
+
+/*
+ * Compiles control structures to JVM classes, one hidden class per delta.
+ * The class keeps the delta's nodes in an array and its run method calls the machine's rule method
+ * for each node in the order the machine would pop them, so the JIT sees every RPAL function
+ * as ordinary straight-line Java code it can inline and optimize.
+ */
+public class DeltaCompiler {
+    private static final int NODES_PER_METHOD = 2000;       // Nodes emitted in one method, keeping methods well under 64KB
+    private static final int MAX_COMPILED_NODES = Short.MAX_VALUE; // Largest delta compiled (node indices are pushed with sipush)
+
+    private static final String CLASS_NAME = "com/rpal/compile/Delta";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String DELTA = "com/rpal/cse/CompiledDelta";
+    private static final String MACHINE = "com/rpal/cse/CSE";
+    private static final String NODE = "Lcom/rpal/cse/CSNode;";
+    private static final String NODES = "[Lcom/rpal/cse/CSNode;";
+    private static final String OPCODE_CLASS = "com/rpal/cse/Opcode";
+    private static final String OPCODE = "Lcom/rpal/cse/Opcode;";
+    private static final String RUN = "(Lcom/rpal/cse/CSE;)V";
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /*
+     * Compiles every delta of a program, keeping their indices
+     */
+    public static CompiledDelta[] compile(List<List<CSNode>> deltaLists) {
+        CompiledDelta[] compiled = new CompiledDelta[deltaLists.size()];
+        for (int delta_no = 0; delta_no < compiled.length; delta_no++) {
+            compiled[delta_no] = compile(delta_no, deltaLists.get(delta_no));
+        }
+        return compiled;
+    }
+
+    /*
+     * Compiles a single delta and loads it as a hidden class
+     */
+    public static CompiledDelta compile(int delta_no, List<CSNode> delta) {
+        if (delta.size() > MAX_COMPILED_NODES) {
+            return new InterpretedDelta(delta);
+        }
+        CSNode[] nodes = delta.toArray(new CSNode[0]);
+        byte[] classFile = emit(delta_no, nodes);
+        try {
+            MethodHandles.Lookup hidden = LOOKUP.defineHiddenClass(classFile, true);
+            MethodHandle constructor = hidden.findConstructor(hidden.lookupClass(),
+                    MethodType.methodType(void.class, CSNode[].class));
+            return (CompiledDelta) constructor.invoke(nodes);
+        } catch (Throwable e) {
+            throw new CompileException("Cannot load compiled delta " + delta_no, e);
+        }
+    }
+
+    /*
+     * Writes the class file of a delta: a final class implementing CompiledDelta,
+     * with the delta's nodes in a field and one call into the machine per node
+     */
+    static byte[] emit(int delta_no, CSNode[] nodes) {
+        ClassEmitter cls = new ClassEmitter(CLASS_NAME + delta_no, OBJECT, DELTA);
+        cls.field(ACC_PRIVATE | ACC_FINAL, "nodes", NODES);
+        int nodesField = cls.fieldRef(CLASS_NAME + delta_no, "nodes", NODES);
+
+        // constructor storing the nodes
+        cls.method(ACC_PUBLIC, "<init>", "(" + NODES + ")V", 2, 2)
+                .op(ALOAD_0)
+                .op(INVOKESPECIAL, cls.methodRef(OBJECT, "<init>", "()V"))
+                .op(ALOAD_0)
+                .op(ALOAD_1)
+                .op(PUTFIELD, nodesField)
+                .op(RETURN);
+
+        // the machine pops the last node of a delta first
+        if (nodes.length <= NODES_PER_METHOD) {
+            Code run = cls.method(ACC_PUBLIC, "run", RUN, 3, 2);
+            emitNodes(cls, run, nodesField, nodes, nodes.length - 1, 0);
+            run.op(RETURN);
+        } else {
+            // large deltas are split into parts, run one after the other
+            Code run = cls.method(ACC_PUBLIC, "run", RUN, 2, 2);
+            int part = 0;
+            for (int high = nodes.length - 1; high >= 0; high -= NODES_PER_METHOD) {
+                int low = Math.max(0, high - NODES_PER_METHOD + 1);
+                Code code = cls.method(ACC_PUBLIC, "part" + part, RUN, 3, 2);
+                emitNodes(cls, code, nodesField, nodes, high, low);
+                code.op(RETURN);
+                run.op(ALOAD_0)
+                        .op(ALOAD_1)
+                        .op(INVOKEVIRTUAL, cls.methodRef(CLASS_NAME + delta_no, "part" + part, RUN));
+                part++;
+            }
+            run.op(RETURN);
+        }
+        return cls.toByteArray();
+    }
+
+    /*
+     * Emits the calls for nodes high down to low. Local 0 is the delta, local 1 the machine.
+     * The last node of the delta (index 0) is in tail position.
+     */
+    private static void emitNodes(ClassEmitter cls, Code code, int nodesField, CSNode[] nodes, int high, int low) {
+        for (int i = high; i >= low; i--) {
+            CSNode node = nodes[i];
+            boolean tail = (i == 0);
+            switch (node.getOpcode()) {
+                case INTEGER:
+                case STRING:
+                case TRUTHVALUE:
+                case NIL:
+                case DUMMY:
+                case Y:
+                    code.op(ALOAD_1);
+                    loadNode(code, nodesField, i);
+                    invoke(cls, code, "pushValue", "(" + NODE + ")V");
+                    break;
+
+                case IDENTIFIER:
+                    code.op(ALOAD_1);
+                    if (node.getDepth() >= 0) {
+                        code.pushInt(node.getDepth()).pushInt(node.getSlot());
+                        invoke(cls, code, "pushVariable", "(II)V");
+                    } else {
+                        loadNode(code, nodesField, i);
+                        invoke(cls, code, "pushIdentifier", "(" + NODE + ")V");
+                    }
+                    break;
+
+                case LAMBDA:
+                    code.op(ALOAD_1);
+                    loadNode(code, nodesField, i);
+                    invoke(cls, code, "pushLambda", "(" + NODE + ")V");
+                    break;
+
+                case GAMMA:
+                    code.op(ALOAD_1);
+                    invoke(cls, code, tail ? "tailGamma" : "gamma", "()V");
+                    break;
+
+                case ADD:
+                case SUBTRACT:
+                case MULTIPLY:
+                case DIVIDE:
+                case POWER:
+                case EQ:
+                case NE:
+                case LS:
+                case GR:
+                case LE:
+                case GE:
+                case OR:
+                case AND:
+                case AUG:
+                    code.op(ALOAD_1);
+                    code.op(GETSTATIC, cls.fieldRef(OPCODE_CLASS, node.getOpcode().name(), OPCODE));
+                    invoke(cls, code, "applyBinary", "(" + OPCODE + ")V");
+                    break;
+
+                case NOT:
+                case NEG:
+                    code.op(ALOAD_1);
+                    code.op(GETSTATIC, cls.fieldRef(OPCODE_CLASS, node.getOpcode().name(), OPCODE));
+                    invoke(cls, code, "applyUnary", "(" + OPCODE + ")V");
+                    break;
+
+                case BETA:
+                    code.op(ALOAD_1);
+                    code.pushInt(node.getThenno()).pushInt(node.getElseno());
+                    invoke(cls, code, tail ? "tailBeta" : "beta", "(II)V");
+                    break;
+
+                case TAU:
+                    code.op(ALOAD_1);
+                    code.pushInt(node.getTauno());
+                    invoke(cls, code, "formTuple", "(I)V");
+                    break;
+
+                case UNKNOWN:
+                    code.op(ALOAD_1);
+                    loadNode(code, nodesField, i);
+                    invoke(cls, code, "unknownOperation", "(" + NODE + ")V");
+                    break;
+
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static void loadNode(Code code, int nodesField, int index) {
+        code.op(ALOAD_0).op(GETFIELD, nodesField).pushInt(index).op(AALOAD);
+    }
+
+    private static void invoke(ClassEmitter cls, Code code, String name, String descriptor) {
+        code.op(INVOKEVIRTUAL, cls.methodRef(MACHINE, name, descriptor));
+    }
+}
@@ -0,0 +1,104 @@
+package com.rpal.compile;
+
+import java.util.List;
+
+import com.rpal.cse.CSE;
+import com.rpal.cse.CSNode;
+import com.rpal.cse.CompiledDelta;
+
+/*
+ * A delta run node by node through the same rule methods compiled code calls.
+ * Used for deltas too large to be compiled into a single class, and as the reference for what compiled code does.
+ */
+public class InterpretedDelta implements CompiledDelta {
+    private final CSNode[] nodes;       // Nodes of the delta, in control structure order
+
+    public InterpretedDelta(List<CSNode> delta) {
+        this.nodes = delta.toArray(new CSNode[0]);
+    }
+
+    @Override
+    public void run(CSE machine) {
+        // the machine pops the last node of a delta first
+        for (int i = nodes.length - 1; i >= 0; i--) {
+            step(machine, nodes[i], i == 0);
+        }
+    }
+
+    /*
+     * Applies the rule for one node. The last node of a delta is in tail position.
+     */
+    static void step(CSE machine, CSNode node, boolean tail) {
+        switch (node.getOpcode()) {
+            case INTEGER:
+            case STRING:
+            case TRUTHVALUE:
+            case NIL:
+            case DUMMY:
+            case Y:
+                machine.pushValue(node);
+                break;
+
+            case IDENTIFIER:
+                if (node.getDepth() >= 0) {
+                    machine.pushVariable(node.getDepth(), node.getSlot());
+                } else {
+                    machine.pushIdentifier(node);
+                }
+                break;
+
+            case LAMBDA:
+                machine.pushLambda(node);
+                break;
+
+            case GAMMA:
+                if (tail) {
+                    machine.tailGamma();
+                } else {
+                    machine.gamma();
+                }
+                break;
+
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+            case DIVIDE:
+            case POWER:
+            case EQ:
+            case NE:
+            case LS:
+            case GR:
+            case LE:
+            case GE:
+            case OR:
+            case AND:
+            case AUG:
+                machine.applyBinary(node.getOpcode());
+                break;
+
+            case NOT:
+            case NEG:
+                machine.applyUnary(node.getOpcode());
+                break;
+
+            case BETA:
+                if (tail) {
+                    machine.tailBeta(node.getThenno(), node.getElseno());
+                } else {
+                    machine.beta(node.getThenno(), node.getElseno());
+                }
+                break;
+
+            case TAU:
+                machine.formTuple(node.getTauno());
+                break;
+
+            case UNKNOWN:
+                machine.unknownOperation(node);
+                break;
+
+            default:
+                break;
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package com.rpal.cse;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.math.BigInteger;
 
 
 
@@ -17,13 +15,18 @@ public class BinaryOperations {
      */
     public static CSNode add(CSNode node1, CSNode node2){
         // Ensure both nodes are of INTEGER type
-        if (node1.getType().equals("INTEGER") && node2.getType().equals("INTEGER")) {
-            int num1 = Integer.parseInt(node1.getName());
-            int num2 = Integer.parseInt(node2.getName());
-            int sum = num1 + num2;
+        if (node1.getOpcode() == Opcode.INTEGER && node2.getOpcode() == Opcode.INTEGER) {
+            if (node1.fitsLong() && node2.fitsLong()) {
+                long num1 = node1.getIntValue();
+                long num2 = node2.getIntValue();
+                long sum = num1 + num2;
 
-            // Return a new node representing the result
-            return new CSNode("INTEGER", String.valueOf(sum));
+                // Return a new node representing the result, unless the sum overflowed
+                if (((num1 ^ sum) & (num2 ^ sum)) >= 0) {
+                    return new IntegerValue(sum);
+                }
+            }
+            return new IntegerValue(node1.getBigValue().add(node2.getBigValue()));
         } else {
             // Throw error if operands are not integers
             throw new CSE_Exception("Operator is not Integer");
@@ -35,13 +38,18 @@ public class BinaryOperations {
      */
     public static CSNode subtract(CSNode node1, CSNode node2) {
         // Ensure both nodes are of INTEGER type
-        if (node1.getType().equals("INTEGER") && node2.getType().equals("INTEGER")) {
-            int num1 = Integer.parseInt(node1.getName());
-            int num2 = Integer.parseInt(node2.getName());
-            int diff = num1 - num2;
+        if (node1.getOpcode() == Opcode.INTEGER && node2.getOpcode() == Opcode.INTEGER) {
+            if (node1.fitsLong() && node2.fitsLong()) {
+                long num1 = node1.getIntValue();
+                long num2 = node2.getIntValue();
+                long diff = num1 - num2;
 
-            // Return result as a new INTEGER node
-            return new CSNode("INTEGER", String.valueOf(diff));
+                // Return result as a new INTEGER node, unless the difference overflowed
+                if (((num1 ^ num2) & (num1 ^ diff)) >= 0) {
+                    return new IntegerValue(diff);
+                }
+            }
+            return new IntegerValue(node1.getBigValue().subtract(node2.getBigValue()));
         } else {
             // Throw error if operands are not integers
             throw new CSE_Exception("Operator is not Integer");
@@ -53,13 +61,18 @@ public class BinaryOperations {
      */
     public static CSNode multiply(CSNode node1, CSNode node2) {
         // Ensure both nodes are of INTEGER type
-        if (node1.getType().equals("INTEGER") && node2.getType().equals("INTEGER")) {
-            int num1 = Integer.parseInt(node1.getName());
-            int num2 = Integer.parseInt(node2.getName());
-            int mult = num1 * num2;
+        if (node1.getOpcode() == Opcode.INTEGER && node2.getOpcode() == Opcode.INTEGER) {
+            if (node1.fitsLong() && node2.fitsLong()) {
+                long num1 = node1.getIntValue();
+                long num2 = node2.getIntValue();
+                long mult = num1 * num2;
 
-            // Return product as a new INTEGER node
-            return new CSNode("INTEGER", String.valueOf(mult));
+                // Return product as a new INTEGER node, unless the high half shows it overflowed
+                if (Math.multiplyHigh(num1, num2) == (mult >> 63)) {
+                    return new IntegerValue(mult);
+                }
+            }
+            return new IntegerValue(node1.getBigValue().multiply(node2.getBigValue()));
         } else {
             // Throw error if operands are not integers
             throw new CSE_Exception("Operator is not Integer");
@@ -71,13 +84,25 @@ public class BinaryOperations {
      */
     public static CSNode divide(CSNode node1, CSNode node2) {
         // Ensure both nodes are of INTEGER type
-        if (node1.getType().equals("INTEGER") && node2.getType().equals("INTEGER")) {
-            int num1 = Integer.parseInt(node1.getName());
-            int num2 = Integer.parseInt(node2.getName());
-            int div = Math.floorDiv(num1, num2);
+        if (node1.getOpcode() == Opcode.INTEGER && node2.getOpcode() == Opcode.INTEGER) {
+            if (node2.fitsLong() && node2.getIntValue() == 0) {
+                throw new CSE_Exception("Division by zero");
+            }
+            // Only Long.MIN_VALUE / -1 overflows a long division
+            if (node1.fitsLong() && node2.fitsLong()
+                    && !(node1.getIntValue() == Long.MIN_VALUE && node2.getIntValue() == -1)) {
+                long div = Math.floorDiv(node1.getIntValue(), node2.getIntValue());
 
-            // Return quotient as a new INTEGER node
-            return new CSNode("INTEGER", String.valueOf(div));
+                // Return quotient as a new INTEGER node
+                return new IntegerValue(div);
+            }
+            BigInteger[] divRem = node1.getBigValue().divideAndRemainder(node2.getBigValue());
+            BigInteger div = divRem[0];
+            // BigInteger division truncates, step down when the exact quotient is negative
+            if (divRem[1].signum() != 0 && divRem[1].signum() != node2.getBigValue().signum()) {
+                div = div.subtract(BigInteger.ONE);
+            }
+            return new IntegerValue(div);
         } else {
             // Throw error if operands are not integers
             throw new CSE_Exception("Operator is not Integer");
@@ -86,38 +111,96 @@ public class BinaryOperations {
 
     /*
      * Raises the first INTEGER node to the power of the second and returns the result.
+     * A negative exponent gives the integer part of the fraction.
      */
     public static CSNode power(CSNode node1, CSNode node2) {
         // Ensure both nodes are of INTEGER type
-        if (node1.getType().equals("INTEGER") && node2.getType().equals("INTEGER")) {
-            int num1 = Integer.parseInt(node1.getName());
-            int num2 = Integer.parseInt(node2.getName());
-            int power = (int) Math.pow(num1, num2);
-            
+        if (node1.getOpcode() == Opcode.INTEGER && node2.getOpcode() == Opcode.INTEGER) {
+            BigInteger base = node1.getBigValue();
+            BigInteger exponent = node2.getBigValue();
+
+            if (exponent.signum() < 0) {
+                if (base.signum() == 0) {
+                    throw new CSE_Exception("Division by zero");
+                } else if (base.abs().equals(BigInteger.ONE)) {
+                    return new IntegerValue(exponent.testBit(0) ? base : BigInteger.ONE);
+                } else {
+                    return new IntegerValue(0L);
+                }
+            }
+            if (base.abs().compareTo(BigInteger.ONE) <= 0) {
+                // 0, 1 and -1 stay small whatever the exponent
+                return new IntegerValue(exponent.signum() == 0 ? BigInteger.ONE : (exponent.testBit(0) ? base : base.abs()));
+            }
+            if (exponent.bitLength() > 31) {
+                throw new CSE_Exception("Integer overflow");
+            }
+
             // Return power result as a new INTEGER node
-            return new CSNode("INTEGER", String.valueOf(power));
+            if (node1.fitsLong()) {
+                long power = powLong(node1.getIntValue(), exponent.intValue());
+                if (power != OVERFLOW) {
+                    return new IntegerValue(power);
+                }
+            }
+            return new IntegerValue(base.pow(exponent.intValue()));
         } else {
             // Throw error if operands are not integers
             throw new CSE_Exception("Operator is not Integer");
         }
     }
 
+    // Marker returned by powLong when the result does not fit in a long (|base| >= 2, so it is never a real result)
+    private static final long OVERFLOW = Long.MIN_VALUE + 1;
+
+    /*
+     * Exponentiation by squaring on longs, |base| >= 2.
+     */
+    private static long powLong(long base, int exponent) {
+        long result = 1;
+        while (exponent > 0) {
+            if ((exponent & 1) == 1) {
+                long high = Math.multiplyHigh(result, base);
+                result = result * base;
+                if (high != (result >> 63)) {
+                    return OVERFLOW;
+                }
+            }
+            exponent >>= 1;
+            if (exponent > 0) {
+                long high = Math.multiplyHigh(base, base);
+                base = base * base;
+                if (high != (base >> 63)) {
+                    return OVERFLOW;
+                }
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Compares the values of two INTEGER nodes.
+     */
+    private static int compareIntegers(CSNode node1, CSNode node2) {
+        if (node1.fitsLong() && node2.fitsLong()) {
+            return Long.compare(node1.getIntValue(), node2.getIntValue());
+        }
+        return node1.getBigValue().compareTo(node2.getBigValue());
+    }
+
 
     /*
     * Static method to compare two CSNodes for equality.
     * Applicable only for INTEGER, STRING, and TRUTHVALUE types.
     */
     public static CSNode isEqual(CSNode node1, CSNode node2) {
-        
-        List<String> acceptableTypes = new ArrayList<String>(); 
-        Collections.addAll(acceptableTypes, "INTEGER", "STRING", "TRUTHVALUE");
 
         // Ensure both nodes are of the same and acceptable type
-        if (acceptableTypes.contains(node1.getType()) && node1.getType().equals(node2.getType())) {
-            if (node1.getName().equals(node2.getName())) {
-                return new CSNode("TRUTHVALUE", "true");
+        if (comparable(node1, node2)) {
+            if (sameValue(node1, node2)) {
+                return TruthValue.TRUE;
             } else {
-                return new CSNode("TRUTHVALUE", "false");
+                return TruthValue.FALSE;
             }
         } else {
             throw new CSE_Exception("Types do not match");
@@ -129,22 +212,40 @@ public class BinaryOperations {
     * Valid for INTEGER, STRING, and TRUTHVALUE types.
     */
     public static CSNode isNotEqual(CSNode node1, CSNode node2) {
-        
-        List<String> acceptableTypes = new ArrayList<String>(); 
-        Collections.addAll(acceptableTypes, "INTEGER", "STRING", "TRUTHVALUE");
 
         // Ensure both nodes are of the same and valid type
-        if (acceptableTypes.contains(node1.getType()) && node1.getType().equals(node2.getType())) {
-            if (node1.getName().equals(node2.getName())) {
-                return new CSNode("TRUTHVALUE", "false");
+        if (comparable(node1, node2)) {
+            if (sameValue(node1, node2)) {
+                return TruthValue.FALSE;
             } else {
-                return new CSNode("TRUTHVALUE", "true");
+                return TruthValue.TRUE;
             }
         } else {
             throw new CSE_Exception("Types do not match");
         }
     }
 
+    /*
+    * Tells whether two nodes can be tested for equality: both INTEGER, both STRING or both TRUTHVALUE.
+    */
+    private static boolean comparable(CSNode node1, CSNode node2) {
+        Opcode type = node1.getOpcode();
+        return (type == Opcode.INTEGER || type == Opcode.STRING || type == Opcode.TRUTHVALUE) && type == node2.getOpcode();
+    }
+
+    /*
+    * Compares two nodes of the same type: integers by value, strings by their characters and truth values by text.
+    */
+    private static boolean sameValue(CSNode node1, CSNode node2) {
+        if (node1.getOpcode() == Opcode.INTEGER) {
+            return compareIntegers(node1, node2) == 0;
+        }
+        if (node1.getOpcode() == Opcode.STRING) {
+            return node1.getRope().contentEquals(node2.getRope());
+        }
+        return node1.getName().equals(node2.getName());
+    }
+
     /*
     * Static method to check if node1 is less than node2.
     * Applicable only for INTEGER and STRING types.
@@ -152,20 +253,20 @@ public class BinaryOperations {
     public static CSNode isLessThan(CSNode node1, CSNode node2) {
         
         // Handle INTEGER comparison
-        if (node1.getType().equals("INTEGER") && node2.getType().equals("INTEGER")) {
-            if (Integer.parseInt(node1.getName()) < Integer.parseInt(node2.getName())) {
-                return new CSNode("TRUTHVALUE", "true");
+        if (node1.getOpcode() == Opcode.INTEGER && node2.getOpcode() == Opcode.INTEGER) {
+            if (compareIntegers(node1, node2) < 0) {
+                return TruthValue.TRUE;
             } else {
-                return new CSNode("TRUTHVALUE", "false");
+                return TruthValue.FALSE;
             }
         } 
 
         // Handle lexicographical STRING comparison
-        else if (node1.getType().equals("STRING") && node2.getType().equals("STRING")) {
-            if (node1.getName().compareTo(node2.getName()) < 0) {
-                return new CSNode("TRUTHVALUE", "true");
+        else if (node1.getOpcode() == Opcode.STRING && node2.getOpcode() == Opcode.STRING) {
+            if (node1.getRope().compareTo(node2.getRope()) < 0) {
+                return TruthValue.TRUE;
             } else {
-                return new CSNode("TRUTHVALUE", "false");
+                return TruthValue.FALSE;
             }
         } else {
             throw new CSE_Exception("Types do not match");
@@ -179,20 +280,20 @@ public class BinaryOperations {
     public static CSNode isGreaterThan(CSNode node1, CSNode node2) {
         
         // Handle INTEGER comparison
-        if (node1.getType().equals("INTEGER") && node2.getType().equals("INTEGER")) {
-            if (Integer.parseInt(node1.getName()) > Integer.parseInt(node2.getName())) {
-                return new CSNode("TRUTHVALUE", "true");
+        if (node1.getOpcode() == Opcode.INTEGER && node2.getOpcode() == Opcode.INTEGER) {
+            if (compareIntegers(node1, node2) > 0) {
+                return TruthValue.TRUE;
             } else {
-                return new CSNode("TRUTHVALUE", "false");
+                return TruthValue.FALSE;
             }
         } 
 
         // Handle lexicographical STRING comparison
-        else if (node1.getType().equals("STRING") && node2.getType().equals("STRING")) {
-            if (node1.getName().compareTo(node2.getName()) > 0) {
-                return new CSNode("TRUTHVALUE", "true");
+        else if (node1.getOpcode() == Opcode.STRING && node2.getOpcode() == Opcode.STRING) {
+            if (node1.getRope().compareTo(node2.getRope()) > 0) {
+                return TruthValue.TRUE;
             } else {
-                return new CSNode("TRUTHVALUE", "false");
+                return TruthValue.FALSE;
             }
         } else {
             throw new CSE_Exception("Types do not match");
@@ -206,20 +307,20 @@ public class BinaryOperations {
     */
     public static CSNode isLessEqualThan(CSNode node1, CSNode node2) {
         // INTEGER comparison
-        if (node1.getType().equals("INTEGER") && node2.getType().equals("INTEGER")) {
-            if (Integer.parseInt(node1.getName()) <= Integer.parseInt(node2.getName())) {
-                return new CSNode("TRUTHVALUE", "true");
+        if (node1.getOpcode() == Opcode.INTEGER && node2.getOpcode() == Opcode.INTEGER) {
+            if (compareIntegers(node1, node2) <= 0) {
+                return TruthValue.TRUE;
             } else {
-                return new CSNode("TRUTHVALUE", "false");
+                return TruthValue.FALSE;
             }
         }
 
         // STRING comparison (lexicographic)
-        else if (node1.getType().equals("STRING") && node2.getType().equals("STRING")) {
-            if (node1.getName().compareTo(node2.getName()) <= 0) {
-                return new CSNode("TRUTHVALUE", "true");
+        else if (node1.getOpcode() == Opcode.STRING && node2.getOpcode() == Opcode.STRING) {
+            if (node1.getRope().compareTo(node2.getRope()) <= 0) {
+                return TruthValue.TRUE;
             } else {
-                return new CSNode("TRUTHVALUE", "false");
+                return TruthValue.FALSE;
             }
         } else {
             throw new CSE_Exception("Types do not match");
@@ -232,20 +333,20 @@ public class BinaryOperations {
     */
     public static CSNode isGreaterEqualThan(CSNode node1, CSNode node2) {
         // INTEGER comparison
-        if (node1.getType().equals("INTEGER") && node2.getType().equals("INTEGER")) {
-            if (Integer.parseInt(node1.getName()) >= Integer.parseInt(node2.getName())) {
-                return new CSNode("TRUTHVALUE", "true");
+        if (node1.getOpcode() == Opcode.INTEGER && node2.getOpcode() == Opcode.INTEGER) {
+            if (compareIntegers(node1, node2) >= 0) {
+                return TruthValue.TRUE;
             } else {
-                return new CSNode("TRUTHVALUE", "false");
+                return TruthValue.FALSE;
             }
         }
 
         // STRING comparison (lexicographic)
-        else if (node1.getType().equals("STRING") && node2.getType().equals("STRING")) {
-            if (node1.getName().compareTo(node2.getName()) >= 0) {
-                return new CSNode("TRUTHVALUE", "true");
+        else if (node1.getOpcode() == Opcode.STRING && node2.getOpcode() == Opcode.STRING) {
+            if (node1.getRope().compareTo(node2.getRope()) >= 0) {
+                return TruthValue.TRUE;
             } else {
-                return new CSNode("TRUTHVALUE", "false");
+                return TruthValue.FALSE;
             }
         } else {
             throw new CSE_Exception("Types do not match");
@@ -257,11 +358,11 @@ public class BinaryOperations {
     * Returns true if either node is true, false otherwise.
     */
     public static CSNode logicOR(CSNode node1, CSNode node2) {
-        if (node1.getType().equals("TRUTHVALUE") && node2.getType().equals("TRUTHVALUE")) {
+        if (node1.getOpcode() == Opcode.TRUTHVALUE && node2.getOpcode() == Opcode.TRUTHVALUE) {
             if (node1.getName().equals("true") || node2.getName().equals("true")) {
-                return new CSNode("TRUTHVALUE", "true");
+                return TruthValue.TRUE;
             } else {
-                return new CSNode("TRUTHVALUE", "false");
+                return TruthValue.FALSE;
             }
         } else {
             throw new CSE_Exception("Types do not match");
@@ -273,11 +374,11 @@ public class BinaryOperations {
     * Returns true only if both nodes are true, false otherwise.
     */
     public static CSNode logicAND(CSNode node1, CSNode node2) {
-        if (node1.getType().equals("TRUTHVALUE") && node2.getType().equals("TRUTHVALUE")) {
+        if (node1.getOpcode() == Opcode.TRUTHVALUE && node2.getOpcode() == Opcode.TRUTHVALUE) {
             if (node1.getName().equals("true") && node2.getName().equals("true")) {
-                return new CSNode("TRUTHVALUE", "true");
+                return TruthValue.TRUE;
             } else {
-                return new CSNode("TRUTHVALUE", "false");
+                return TruthValue.FALSE;
             }
         } else {
             throw new CSE_Exception("Types do not match");
@@ -286,19 +387,14 @@ public class BinaryOperations {
 
     /*
     * Static method to augment a tuple or NIL node with another node.
-    * The first node must be of type 'tuple', 'tau', or 'NIL'.
+    * The first node must be of type 'tuple', 'tau', or 'NIL', and is left unchanged.
     */
     public static CSNode augment(CSNode node1, CSNode node2) {
-        List<String> acceptableTypes = new ArrayList<String>();
-        Collections.addAll(acceptableTypes, "tau", "NIL", "tuple");
-
-        if (acceptableTypes.contains(node1.getType())) {
-            CSNode augNode = node1.duplicate();
-            augNode.setName("tuple");
-            augNode.setType("tuple");
-            augNode.getTuple().add(node2);
-            augNode.setIsTuple(true);
-            return augNode;
+        Opcode type = node1.getOpcode();
+
+        if (type == Opcode.TAU || type == Opcode.NIL || type == Opcode.TUPLE) {
+            // the elements of node1 are shared, not modified
+            return new TupleValue(Tuple.from(node1.getTuple()).append(node2));
         } else {
             throw new CSE_Exception("Cannot augment to a non-tuple");
         }
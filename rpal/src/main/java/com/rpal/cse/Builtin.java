@@ -0,0 +1,56 @@
+package com.rpal.cse;
+
+import java.util.List;
+
+/*
+ * Function the CSE machine applies with rule 3, such as Print, Order or Conc.
+ * Identifiers that name a built-in are resolved to it in the registry the control structures are generated with
+ * (see Builtins), so applying one is a virtual call. A function of several arguments takes them one gamma at a time:
+ * until the last one arrives, the identifier on the stack keeps the arguments given so far.
+ */
+public abstract class Builtin {
+    private final String name;          // Name the function is called by in RPAL
+    private final int arity;            // Number of arguments it takes before it is applied
+
+    protected Builtin(String name, int arity) {
+        if (arity < 1) {
+            throw new IllegalArgumentException("A built-in takes at least one argument : " + name);
+        }
+        this.name = name;
+        this.arity = arity;
+    }
+
+    public final String getName() {
+        return name;
+    }
+
+    public final int getArity() {
+        return arity;
+    }
+
+    /*
+     * Checks an argument as it is given, before the function has all of them.
+     * 'position' is the number of arguments given before it. Throws CSE_Exception to reject it.
+     */
+    protected void check(int position, CSNode arg) {
+    }
+
+    /*
+     * Applies the function once it has all its arguments: the ones given before, in order, then the last one.
+     * The machine gives access to the program's output.
+     */
+    public abstract CSNode apply(CSE machine, List<CSNode> given, CSNode last);
+
+    /*
+     * Rule 3: applies the function, or the partial application 'function' of it, to one more argument
+     */
+    final CSNode applyTo(CSE machine, Identifier function, CSNode arg) {
+        List<CSNode> given = function.getTuple();
+        check(given.size(), arg);
+        if (given.size() + 1 < arity) {
+            Tuple args = given.isEmpty() ? Tuple.of(new CSNode[] { arg }) : Tuple.from(given).append(arg);
+            return new Identifier(name, this, args);
+        }
+        return apply(machine, given, arg);
+    }
+}
@@ -0,0 +1,120 @@
+package com.rpal.cse;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/*
+ * Registry of the built-in functions identifiers are resolved to: RPAL's own, and any the host adds.
+ * Each registry is a namespace of its own, handed to the code that generates or loads control structures
+ * (AST.getCS, MappedProgram, ProgramCache) and to the machines that run them (CSE, Evaluator, BatchEvaluator).
+ * Control structures should run with the registry they were generated with. A name they left unresolved is
+ * still looked up in the machine's registry when it runs, so a function registered afterwards is found.
+ */
+public final class Builtins {
+    // RPAL's own built-ins, in every registry
+    private static final Builtin[] RPAL = {
+        new Builtin("Print", 1) {
+            @Override
+            public CSNode apply(CSE machine, List<CSNode> given, CSNode last) {
+                Functions.Print(last, machine.getOutput());
+                return last;
+            }
+        },
+        new Builtin("Conc", 2) {
+            @Override
+            protected void check(int position, CSNode arg) {
+                if (arg.getOpcode() != Opcode.STRING) {
+                    throw new CSE_Exception("Argument is not a string");
+                }
+            }
+
+            @Override
+            public CSNode apply(CSE machine, List<CSNode> given, CSNode last) {
+                return Functions.Conc(given.get(0), last);
+            }
+        },
+        unary("Stem", Functions::Stem),
+        unary("Stern", Functions::Stern),
+        unary("Order", Functions::Order),
+        unary("Null", Functions::Null),
+        unary("Isinteger", Functions::Isinteger),
+        unary("Istruthvalue", Functions::Istruthvalue),
+        unary("Isstring", Functions::Isstring),
+        unary("Istuple", Functions::Istuple),
+        unary("Isfunction", Functions::Isfunction),
+        unary("Isdummy", Functions::Isdummy),
+        unary("ItoS", Functions::intToStr),
+    };
+
+    private static final Builtins STANDARD = new Builtins(false);
+
+    private final ConcurrentHashMap<String, Builtin> registry = new ConcurrentHashMap<String, Builtin>();
+    private final boolean modifiable;   // False for the shared registry of RPAL's built-ins only
+
+    /*
+     * Registry holding RPAL's built-ins, to which the host may add its own
+     */
+    public Builtins() {
+        this(true);
+    }
+
+    private Builtins(boolean modifiable) {
+        this.modifiable = modifiable;
+        for (Builtin function : RPAL) {
+            registry.put(function.getName(), function);
+        }
+    }
+
+    /*
+     * Shared registry of RPAL's built-ins, used when no other is given. It cannot be changed.
+     */
+    public static Builtins standard() {
+        return STANDARD;
+    }
+
+    /*
+     * Makes a function callable from RPAL by its name. A name can only be registered once: registering it again,
+     * RPAL's own included, throws IllegalArgumentException until it is unregistered.
+     */
+    public void register(Builtin function) {
+        checkModifiable();
+        if (registry.putIfAbsent(function.getName(), function) != null) {
+            throw new IllegalArgumentException("Built-in already registered : " + function.getName());
+        }
+    }
+
+    /*
+     * Removes the function registered under the given name. Returns false if there was none.
+     * Control structures generated while it was registered keep calling it.
+     */
+    public boolean unregister(String name) {
+        checkModifiable();
+        return registry.remove(name) != null;
+    }
+
+    /*
+     * Function registered under the given name (null if there is none)
+     */
+    public Builtin lookUp(String name) {
+        return registry.get(name);
+    }
+
+    private void checkModifiable() {
+        if (!modifiable) {
+            throw new UnsupportedOperationException("The standard built-ins cannot be changed, register in a new Builtins");
+        }
+    }
+
+    /*
+     * Function of one argument from a Java function on values
+     */
+    private static Builtin unary(String name, UnaryOperator<CSNode> function) {
+        return new Builtin(name, 1) {
+            @Override
+            public CSNode apply(CSE machine, List<CSNode> given, CSNode last) {
+                return function.apply(last);
+            }
+        };
+    }
+}
@@ -1,57 +1,123 @@
 package com.rpal.cse;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.EmptyStackException;
 import java.util.List;
-import java.util.Stack;
+
+import com.rpal.io.ChannelSink;
+import com.rpal.io.OutputSink;
+import com.rpal.util.Allocations;
+import com.rpal.util.ArrayStack;
 
 
 
 /*
- * This class represents the CSE (Control, Stack, Environment) Machine responsible for evaluation operations
+ * This class represents the CSE (Control, Stack, Environment) Machine responsible for evaluation operations.
+ * Programs are either interpreted (runCSE), or run as compiled deltas (runCompiled) that call the
+ * public rule methods of the machine directly, one call per control structure node.
+ *
+ * A machine is used by one thread at a time, and keeps all the state of the program it runs.
+ * It never modifies the control structures (or compiled deltas) it is given: nodes are immutable,
+ * so several machines may run the same control structures concurrently.
  */
 public class CSE {
+    private static final long COMPILED_STACK_SIZE = 1L << 30;      // Thread stack for compiled code, whose calls nest on the Java stack
+
     private List<List<CSNode>> deltaLists;                          // Collection of control structures (deltas)
-    private Stack<CSNode> ControlList = new Stack<CSNode>();        // Control stack to manage execution flow
-    private Stack<CSNode> StackList = new Stack<CSNode>();          // Operand stack for intermediate values
-    private EnvironmentTree envtree = new EnvironmentTree();        // Tree managing all environments created during execution
-    private int curr_env = 0;                                       // Identifier for the current active environment
+    private final Builtins builtins;                                // Where names left unresolved are looked up
+    private ArrayStack<CSNode> ControlList = new ArrayStack<CSNode>();  // Control stack to manage execution flow
+    private ArrayStack<CSNode> StackList = new ArrayStack<CSNode>();    // Operand stack for intermediate values
+    private Frame curr_env = Frame.root();                          // Current environment, which the root environment starts as
     private int env_counter = 0;                                    // Tracker for the latest environment ID created
-    private List<Integer> activeEnvNum = new ArrayList<Integer>();  // Keeps track of currently open environment IDs
+
+    private CompiledDelta[] compiled;                               // Compiled deltas, when running compiled code
+    private ArrayStack<CSNode> FrameList = new ArrayStack<CSNode>();    // Env markers of the lambdas being run by compiled code
+    private CSNode tailLambda;                                      // Lambda of a pending tail call made by compiled code (null if none)
+    private CSNode tailArg;                                         // Argument of the pending tail call
+    private OutputSink out;                                         // Where Print writes (the standard output, made on first use, if null)
+
+    private final long[] ruleSteps = new long[14];                  // Steps taken by each CSE rule, indexed by rule number (1-13)
+    private volatile boolean cancelled;                             // Set from another thread to stop the program
+    private boolean trackAllocations;                               // Whether to count the heap allocated while the program runs
+    private long allocatedBytes;                                    // Heap allocated by the thread that ran the program
 
     // Constructor to initialize the CSE machine with control structures
     public CSE(List<List<CSNode>> deltaLists) {
+        this(deltaLists, Builtins.standard());
+    }
+
+    // Constructor for control structures generated with the built-ins of the given registry
+    public CSE(List<List<CSNode>> deltaLists, Builtins builtins) {
         this.deltaLists = deltaLists;
+        this.builtins = builtins;
+    }
+
+    /*
+     * Sends what the program prints to the given sink instead of the standard output
+     */
+    public void setOutput(OutputSink out) {
+        this.out = out;
+    }
+
+    /*
+     * Sink Print writes to. The standard output sink, with its buffer, is only made once something is printed to it.
+     */
+    public OutputSink getOutput() {
+        if (out == null) {
+            out = ChannelSink.stdout();
+        }
+        return out;
     }
 
     public int getEnvCounter() {
         return env_counter;
-    } 
+    }
 
     /*
-     * Adds a specific control structure (delta) to the control stack by its index
+     * Number of steps taken by a CSE rule (1 to 13)
      */
-    public void insertToControl(int delta_num) {
-        List<CSNode> delta_i = deltaLists.get(delta_num);
-        CSNode delta_cs = new CSNode("delta", delta_num, delta_i);
-        this.getControlList().push(delta_cs);
+    public long getRuleSteps(int rule) {
+        return ruleSteps[rule];
     }
 
     /*
-     * Breaks down a delta node into its sequence of operations and pushes them onto the control stack
+     * Largest depth reached by the control. Compiled code has no control, the depth of nested lambda bodies is given instead.
      */
-    public void expandDelta() {
-        CSNode delta_cs = this.getControlList().pop();
+    public int getPeakControlDepth() {
+        return Math.max(this.ControlList.peakSize(), this.FrameList.peakSize());
+    }
 
-        // Confirm it's a delta node before expanding
-        if (delta_cs.getType().equals("delta")) {
-            // Push each component of the control structure onto the control stack
-            List<CSNode> ctrl_struct = delta_cs.getTuple();
-            for (int i = 0; i < ctrl_struct.size(); i++) {
-                this.getControlList().push(ctrl_struct.get(i)); 
-            }
-        } else {
-            // Error if the node is not of type delta
-            throw new CSE_Exception("Not a Control Structure - cannot be expanded");
+    public int getPeakStackDepth() {
+        return this.StackList.peakSize();
+    }
+
+    /*
+     * Stops the program from another thread. It is checked whenever a lambda is applied, which every loop
+     * (being a recursion) does: the run then ends with a CSE_Exception.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /*
+     * Counts the bytes allocated on the heap while the program runs (off by default, as it slows down start up)
+     */
+    public void setTrackAllocations(boolean trackAllocations) {
+        this.trackAllocations = trackAllocations;
+    }
+
+    /*
+     * Bytes allocated on the heap while the program ran, if tracked
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /*
+     * Pushes the operations of a control structure (delta), given by its index, onto the control stack
+     */
+    public void insertToControl(int delta_num) {
+        List<CSNode> ctrl_struct = deltaLists.get(delta_num);
+        for (int i = 0; i < ctrl_struct.size(); i++) {
+            this.ControlList.push(ctrl_struct.get(i));
         }
     }
 
@@ -59,305 +125,161 @@ public class CSE {
      * Prepares and initializes the control, stack, and environment components for the machine
      */
     private void setupCSE() {
-        CSNode parent_env = new CSNode("env", curr_env);              // Create the initial environment node (env 0)
+        CSNode parent_env = new EnvMarker(curr_env, null);           // Create the marker of the initial environment (env 0)
 
         this.ControlList.push(parent_env);                            // Add the initial env to the control stack
         this.StackList.push(parent_env);                              // Add the initial env to the stack
-        this.envtree.addEnv(curr_env, null, null);                    // Insert env 0 into the environment tree (no parent)
-        this.activeEnvNum.add(curr_env);                              // Mark env 0 as an active environment
 
         this.insertToControl(0);                                      // Load the first control structure
-        this.expandDelta();                                           // Expand the loaded control structure
     }
 
+
     /*
-     * Recursively search the environment tree for a variable, starting from a given environment number
+     * Tells whether the lambda being applied is in tail position, that is, the next thing on the control
+     * is the exit of the caller's environment and the caller's marker is on top of the stack.
+     * The root environment is never left early.
      */
-    public CSNode lookUpEnv(EnvironmentTree envtree, int env_no, String variable) {
-        CSNode envVar = envtree.getEnvNode(env_no).getVariable();
-        
-        if (envVar==null){
-            throw new CSE_Exception("Undefined variable : "+variable);
+    private boolean isTailCall() {
+        if (this.ControlList.isEmpty() || this.StackList.isEmpty()) {
+            return false;
         }
+        CSNode nextCtrl = this.ControlList.peek();
+        CSNode topStack = this.StackList.peek();
+        return nextCtrl.getOpcode() == Opcode.ENV && nextCtrl.getEnvno() != 0
+                && topStack.getOpcode() == Opcode.ENV && topStack.getEnvno() == nextCtrl.getEnvno();
+    }
 
-        // Retrieve the list of variable names defined in this environment
-        List<String> varList = envVar.getLambdavar();
-
-        // If the target variable is present in the current environment
-        if (varList.contains(variable)) {
-            int idx = varList.indexOf(variable);
-            
-            // Return the corresponding value from the tuple
-            return envVar.getTuple().get(idx);
-        } else {
-
-            // Otherwise, search recursively in the parent environment
-            int parent_no = envtree.getEnvNode(env_no).getParentEnv().getEnv_no();
-            return lookUpEnv(envtree, parent_no, variable);
-        }
+    /*
+     * Exits the caller's environment before a tail call instead of after it (rule 5 applied early).
+     * The callee then returns straight to the caller's caller, so a loop written as tail recursion
+     * runs with control and stack of constant depth, and the environments it leaves can be reclaimed.
+     * Returns the environment the caller would have restored, which the callee restores instead.
+     */
+    private Frame dropCallerEnv() {
+        EnvMarker callerEnv = (EnvMarker) this.ControlList.pop();
+        this.StackList.pop();
+        return callerEnv.getPrev();
     }
 
 
     /*
-     * Primary execution method for the CSE Machine
+     * Primary execution method for the CSE Machine.
+     * What the program printed is flushed to the output sink when it ends, normally or not.
      */
     public void runCSE() {
+        long allocatedBefore = trackAllocations ? Allocations.currentThread() : 0;
+        try {
+            interpret();
+        } finally {
+            if (trackAllocations) {
+                this.allocatedBytes = Allocations.currentThread() - allocatedBefore;
+            }
+            if (this.out != null) {
+                this.out.flush();
+            }
+        }
+    }
+
+    private void interpret() {
         setupCSE();                                             // Initialize the CSE machine
 
         // Continue execution as long as the Control stack has elements
-        while (!this.getControlList().empty()) {
-            
-            CSNode topCtrlNode = this.getControlList().pop();   // Retrieve the current top node from Control  
+        while (!this.ControlList.isEmpty()) {
+
+            CSNode topCtrlNode = this.ControlList.pop();   // Retrieve the current top node from Control
             CSNode topStackNode1;                               // Placeholder for top item from Stack
             CSNode topStackNode2;                               // Placeholder for second item from Stack
 
-            CSNode newGammaNode;
-            CSNode newlambdaNode;
+            /* Identify the operation code of the Control node to determine the corresponding rule for execution */
+            switch (topCtrlNode.getOpcode()) {
 
-            CSNode valueItem = topCtrlNode.duplicate();
-            
-            /* Identify the type of the Control node to determine the corresponding rule for execution */
-            switch (topCtrlNode.getType()) {
-                
                 // Rule 1 of CSE
                 // Push constants or basic data types directly onto the Stack
 
                 // Integer, String, Boolean, Nil, Dummy, and Y* nodes are stacked without transformation
-                case "INTEGER":
-                    this.getStackList().push(valueItem);
-                    break;
-                
-                case "STRING":
-                    this.getStackList().push(valueItem);
-                    break;
-                
-                case "TRUTHVALUE":
-                    this.getStackList().push(valueItem);
-                    break;
-
-                case "NIL":
-                    this.getStackList().push(valueItem);
+                case INTEGER:
+                case STRING:
+                case TRUTHVALUE:
+                case NIL:
+                case DUMMY:
+                case Y:
+                    this.pushValue(topCtrlNode);
                     break;
 
-                case "DUMMY":
-                    this.getStackList().push(valueItem);
-                    break;
-
-                case "Y":
-                    this.getStackList().push(valueItem);
-                    break;
-
-                case "IDENTIFIER":
-
-                    // If the identifier matches a built-in function name, push it as-is
-                    if (Functions.checkInBuilt(topCtrlNode.getName())) {
-                        this.getStackList().push(valueItem);
-                        
-                    } else {
-                        // Otherwise, look up the identifier's bound value from the environment
-                        String varName = topCtrlNode.getName();
-                        CSNode valueNode = lookUpEnv(envtree, curr_env, varName);
-                        this.getStackList().push(valueNode);
-                    }
-
+                case IDENTIFIER:
+                    this.pushIdentifier(topCtrlNode);
                     break;
 
                 // Rule 2 of CSE
                 // Push lambda closures onto the Stack after tagging with current environment
-                case "lambdaClosure":
-                    topCtrlNode.setEnvno(curr_env);                 // Attach current environment number to the lambda
-                    CSNode lambdaNode = topCtrlNode.duplicate();
-                    this.StackList.push(lambdaNode);                // Stack the lambda closure
+                case LAMBDA:
+                    this.pushLambda(topCtrlNode);
                     break;
-  
+
                 // Rules 3, 4, 10, 11, 12, and 13 of CSE: Gamma rule (function application logic)
-                case "gamma":
-                    topStackNode1 = this.getStackList().pop();
+                case GAMMA:
+                    topStackNode1 = this.StackList.pop();
 
                     // Choose gamma application logic based on type of top item from Stack
-                    switch (topStackNode1.getType()) {
-                        
+                    switch (topStackNode1.getOpcode()) {
+
                         // Rule 3 of CSE
                         // Apply built-in functions to another argument
-                        case "IDENTIFIER":
-                            topStackNode2 = this.getStackList().pop();
-
-                            /*
-                             * Execute a built-in operation on the second top item using the identifier from the top
-                             */
-
-                            switch (topStackNode1.getName()) {
-                                case "Print":
-                                   Functions.Print(topStackNode2);
-                                    this.getStackList().push(topStackNode2);
-                                    break;
-
-                                case "Conc":
-                                    CSNode concOneNode = Functions.ConcOne(topStackNode2);
-                                    this.getStackList().push(concOneNode);
-                                    break;
-
-                                case "ConcOne":
-                                    CSNode node1 = topStackNode1.getTuple().get(0);
-                                    CSNode concatNode = Functions.Conc(node1, topStackNode2);
-                                    this.getStackList().push(concatNode);
-                                    break;
-                                
-                                case "Stem":
-                                    CSNode stemNode = Functions.Stem(topStackNode2);
-                                    this.getStackList().push(stemNode);
-                                    break;
-
-                                case "Stern":
-                                    CSNode sternNode = Functions.Stern(topStackNode2);
-                                    this.getStackList().push(sternNode);
-                                    break;
-
-                                case "Order":
-                                    CSNode numNode = Functions.Order(topStackNode2);
-                                    this.getStackList().push(numNode);
-                                    break;
-
-                                case "Null":
-                                    CSNode nullNode =Functions.Null(topStackNode2);
-                                    this.getStackList().push(nullNode);
-                                    break;
-
-                                case "Isinteger":
-                                    CSNode isIntNode = Functions.Isinteger(topStackNode2);
-                                    this.getStackList().push(isIntNode);
-                                    break;
-                                
-                                case "Istruthvalue":
-                                    CSNode isTruthNode = Functions.Istruthvalue(topStackNode2);
-                                    this.getStackList().push(isTruthNode);
-                                    break;
-                                
-                                case "Isstring":
-                                    CSNode isStringNode = Functions.Isstring(topStackNode2);
-                                    this.getStackList().push(isStringNode);
-                                    break;
-                                
-                                case "Istuple":
-                                    CSNode isTupleNode = Functions.Istuple(topStackNode2);
-                                    this.getStackList().push(isTupleNode);
-                                    break;
-                                
-                                case "Isfunction":
-                                    CSNode isFunctionNode = Functions.Isfunction(topStackNode2);
-                                    this.getStackList().push(isFunctionNode);
-                                    break;
-                                
-                                case "Isdummy":
-                                    CSNode isDummyNode = Functions.Isdummy(topStackNode2);
-                                    this.getStackList().push(isDummyNode);
-                                    break;
-
-                                case "ItoS":
-                                    CSNode strNode = Functions.intToStr(topStackNode2);
-                                    this.getStackList().push(strNode);
-                                    break;
-                                
-                                default:
-                                    break;
-                            }
+                        case IDENTIFIER:
+                            this.applyBuiltin(topStackNode1);
                             break;
 
                         // CSE Rule 4 & 11
                         // Apply Lambda (to single and multivariable)
-                        case "lambdaClosure":
+                        case LAMBDA:
                             // Obtaining Random Value
-                            topStackNode2 = this.getStackList().pop();
-                            
-                            // moving to next environment
-                            env_counter++;
-                            this.curr_env = env_counter;
-
-                            // creating new environment variable to insert to control-stack
-                            CSNode envCSNode = new CSNode("env", env_counter);
-
-                            // clear space in tuple parameter to insert the values of the parameters tracked by lambda
-                            topStackNode1.setTuple(new ArrayList<CSNode>());
-                            
-                            // if the lambda node tracks multiple parameters (formerly a comma node)
-                            if (topStackNode1.getLambdavar().size() > 1) {
-
-                                // then insert each value into the tuple parameter of lambda node
-                                List<CSNode> tuple1 = topStackNode2.getTuple();
-                                for (int i = 0; i < tuple1.size(); i++) {
-                                    topStackNode1.getTuple().add(tuple1.get(i));
-                                }
-
-                            } else {
-                                // else just save the value in the tuple parameter of the lambda node
-                                topStackNode1.getTuple().add(topStackNode2);
+                            topStackNode2 = this.StackList.pop();
+
+                            // environment to come back to once the lambda's body is evaluated
+                            Frame return_env = this.curr_env;
+
+                            // a call in tail position: the caller's environment would be exited as soon as this call returns
+                            if (this.isTailCall()) {
+                                return_env = this.dropCallerEnv();
                             }
-                            CSNode valueNode = topStackNode1.duplicate();
 
-                            // create a new Environment node with value saved 
-                            this.envtree.addEnv(curr_env, valueNode, this.envtree.getEnvNode(topStackNode1.getEnvno()));
-                            
-                            // update environment numbers
-                            this.activeEnvNum.add(curr_env);
-                            this.setCurr_env(curr_env);
+                            CSNode envCSNode = this.enterEnv(topStackNode1, topStackNode2, return_env);
 
                             // push the new environment node
-                            this.getControlList().push(envCSNode);
-                            this.getStackList().push(envCSNode);
+                            this.ControlList.push(envCSNode);
+                            this.StackList.push(envCSNode);
 
                             // insert the next delta structure
                             int delta_no = topStackNode1.getLambdano();
                             this.insertToControl(delta_no);
-                            this.expandDelta();
 
                             break;
 
                         // CSE Rule 10
                         // Tuple Selection
-                        case "tuple":
-                            // get the index of the element to select from tuple
-                            topStackNode2 = this.getStackList().pop();
-                            int index_i = Integer.parseInt(topStackNode2.getName());
-
-                            // extract tuple
-                            List<CSNode> tuple = topStackNode1.getTuple();
-                            
-                            // selecting the required tuple element
-                            CSNode tup_elem = tuple.get(index_i-1);
-
-                            // inserting the selected tuple element
-                            this.getStackList().push(tup_elem);
-                            
+                        case TUPLE:
+                            this.selectFromTuple(topStackNode1);
                             break;
-                        
+
                         // CSE Rule 12
                         // Applying Y to lambda
-                        case "Y":
-                            topStackNode2 = this.getStackList().pop();
-                            CSNode etaNode = topStackNode2.duplicate();
-                            etaNode.setType("eta");
-                            this.getStackList().push(etaNode);
+                        case Y:
+                            this.applyY();
                             break;
-                        
+
                         // CSE Rule 13
                         // Applying f.p.
-                        case "eta":
-                            // updating the control
-                            newGammaNode = new CSNode("gamma", "gamma");
-                            // pushing 2 gamma nodes to the control
-                            this.getControlList().push(newGammaNode);      
-                            this.getControlList().push(newGammaNode);      
+                        case ETA:
+                            this.ruleSteps[13]++;
+                            // updating the control: pushing 2 gamma nodes
+                            this.ControlList.push(Instruction.GAMMA);
+                            this.ControlList.push(Instruction.GAMMA);
 
                             // updating the stack
-                            List<String> varList = topStackNode1.getLambdavar();
-                            
-                            // creating a new lambda node with env stored
-                            newlambdaNode = new CSNode("lambdaClosure", varList, topStackNode1.getLambdano());
-                            newlambdaNode.setEnvno(topStackNode1.getEnvno());
-                            this.getStackList().push(topStackNode1);        // pushing the eta node back into the stack
-                            this.getStackList().push(newlambdaNode);        // pushing the lambda into the stack
+                            this.StackList.push(topStackNode1);        // pushing the eta node back into the stack
+                            this.StackList.push(lambdaOfEta(topStackNode1)); // pushing the lambda into the stack
                             break;
-                    
+
                         default:
                             break;
                     }
@@ -366,24 +288,23 @@ public class CSE {
 
                 // CSE Rules 5
                 // Exit Environment
-                case "env":
+                case ENV:
                     // value node to be reinserted to stack
-                    topStackNode1 = this.getStackList().pop();
-                    
+                    topStackNode1 = this.StackList.pop();
+
                     // environment variable found in stack
-                    topStackNode2 = this.getStackList().pop();
+                    topStackNode2 = this.StackList.pop();
 
                     // checking if the environment variables are matching
-                    if (topCtrlNode.getType().equals(topStackNode2.getType()) & 
+                    if (topStackNode2.getOpcode() == Opcode.ENV &&
                                         topCtrlNode.getEnvno() == topStackNode2.getEnvno()){
-                        this.getStackList().push(topStackNode1);
-                        
+                        this.ruleSteps[5]++;
+                        this.StackList.push(topStackNode1);
+
                         // unless root environment
-                        if (this.curr_env != 0) {
-                            // remove the env number from the list of active environments
-                            this.activeEnvNum.remove((Integer) curr_env);
-                            // set the last unclosed environment in active list as current environment
-                            this.curr_env = Collections.max(activeEnvNum);   
+                        if (this.curr_env.getNumber() != 0) {
+                            // return to the environment saved in the marker when it was entered
+                            this.curr_env = ((EnvMarker) topCtrlNode).getPrev();
                         }
                     } else {
                         // if environments did not match put exception
@@ -391,128 +312,54 @@ public class CSE {
                     }
                     break;
 
-                    
+
                 // CSE Rules 6
                 // Binary Operators
-                case "OPERATOR":
-                    // obtain the two operands for the binary operation
-                    topStackNode1 = this.getStackList().pop();
-                    topStackNode2 = this.getStackList().pop();
-                    switch (topCtrlNode.getName()) {
-                        case "+":
-                            CSNode sumNode = BinaryOperations.add(topStackNode1, topStackNode2);
-                            this.getStackList().push(sumNode);    
-                            break;
-                        case "-":
-                            CSNode diffNode = BinaryOperations.subtract(topStackNode1, topStackNode2);
-                            this.getStackList().push(diffNode);    
-                            break;
-                        case "*":
-                            CSNode productNode =BinaryOperations.multiply(topStackNode1, topStackNode2);
-                            this.getStackList().push(productNode);
-                            break;
-                        case "/":
-                            CSNode quotientNode =BinaryOperations.divide(topStackNode1, topStackNode2);
-                            this.getStackList().push(quotientNode);
-                            break;
-                        case "**":
-                            CSNode powerNode = BinaryOperations.power(topStackNode1, topStackNode2);
-                            this.getStackList().push(powerNode);
-                            break;
-                        case "eq":
-                            CSNode isEqual = BinaryOperations.isEqual(topStackNode1, topStackNode2);
-                            this.getStackList().push(isEqual);
-                            break;
-                        case "ne":
-                            CSNode isNotEqual =BinaryOperations.isNotEqual(topStackNode1, topStackNode2);
-                            this.getStackList().push(isNotEqual);
-                            break;
-                        case "ls":
-                        case "<":
-                            CSNode isLess =BinaryOperations.isLessThan(topStackNode1, topStackNode2);
-                            this.getStackList().push(isLess);
-                            break;
-                        case "gr":
-                        case ">":
-                            CSNode isGreater = BinaryOperations.isGreaterThan(topStackNode1, topStackNode2);
-                            this.getStackList().push(isGreater);
-                            break;
-                        case "le":
-                        case "<=":
-                            CSNode isLessEqual = BinaryOperations.isLessEqualThan(topStackNode1, topStackNode2);
-                            this.getStackList().push(isLessEqual);
-                            break;
-                        case "ge":
-                        case ">=":
-                            CSNode isGreaterEqual = BinaryOperations.isGreaterEqualThan(topStackNode1, topStackNode2);
-                            this.getStackList().push(isGreaterEqual);
-                            break;
-                        case "or":
-                            CSNode logicOR = BinaryOperations.logicOR(topStackNode1, topStackNode2);
-                            this.getStackList().push(logicOR);
-                            break;
-                        case "&":
-                            CSNode logicAND = BinaryOperations.logicAND(topStackNode1, topStackNode2);
-                            this.getStackList().push(logicAND);
-                            break;
-                        case "aug":
-                            CSNode augNode =BinaryOperations.augment(topStackNode1, topStackNode2);
-                            this.getStackList().push(augNode);
-                            break;
-                        default:
-                            break;
-                    }
+                case ADD:
+                case SUBTRACT:
+                case MULTIPLY:
+                case DIVIDE:
+                case POWER:
+                case EQ:
+                case NE:
+                case LS:
+                case GR:
+                case LE:
+                case GE:
+                case OR:
+                case AND:
+                case AUG:
+                    this.applyBinary(topCtrlNode.getOpcode());
+                    break;
+
+                case UNKNOWN:
+                    this.unknownOperation(topCtrlNode);
                     break;
 
                 // CSE Rules 7
                 // Unary Operators
-                case "not":
-                    topStackNode1 = this.getStackList().pop();
-                    this.getStackList().push(UnaryOperations.logicNot(topStackNode1));
-                    break;
-                case "neg":
-                    topStackNode1 = this.getStackList().pop();
-                    this.getStackList().push(UnaryOperations.neg(topStackNode1));
+                case NOT:
+                case NEG:
+                    this.applyUnary(topCtrlNode.getOpcode());
                     break;
 
                 // CSE Rules 8
                 // Conditional
 
-                case "beta":
-                    topStackNode1 = this.getStackList().pop();              // topmost stack element indicating true/false
-                    if (topStackNode1.getName().equals("true")) {
-                        // insert delta-then
-                        this.insertToControl(topCtrlNode.getThenno());      
-                        this.expandDelta();
-                    } else if (topStackNode1.getName().equals("false")) {
-                        // insert delta-else
-                        this.insertToControl(topCtrlNode.getElseno());
-                        this.expandDelta();
+                case BETA:
+                    int branch = this.selectBranch(topCtrlNode.getThenno(), topCtrlNode.getElseno());
+                    if (branch >= 0) {
+                        // insert delta-then or delta-else
+                        this.insertToControl(branch);
                     }
                     break;
-                
+
                 // CSE Rules 9
                 // Tuple Formation
-                case "tau":
-                    // get number of elements in the tuple
-                    int n = topCtrlNode.getTauno();
-                    
-                    // creating the tuple Object to be added into the stack
-                    CSNode tuple = new CSNode("tuple", "tuple");
-                    tuple.setIsTuple(true);
-
-                    // extracting each of the tuple items from the loop 
-                        // and adding to the tuple object
-                    for (int i=0; i<n; i++) {
-                        CSNode tup_elem = this.getStackList().pop();
-                        tuple.getTuple().add(tup_elem.duplicate());
-                    }
-
-                    // adding the tuple object to the stack
-                    this.getStackList().push(tuple);
-
+                case TAU:
+                    this.formTuple(topCtrlNode.getTauno());
                     break;
-            
+
                 default:
                     break;
             }
@@ -524,30 +371,455 @@ public class CSE {
      * End of runCSE method
      */
 
-    public Stack<CSNode> getControlList() {
-        return ControlList;
+
+    /*
+     * Runs the program from its compiled deltas, indexed like the control structures.
+     * A lambda's body is entered by calling its compiled delta, so calls nest on the Java stack:
+     * the program runs on a thread with a large stack, and tail calls return to the caller's loop instead.
+     */
+    public void runCompiled(CompiledDelta[] compiledDeltas) {
+        this.compiled = compiledDeltas;
+
+        CSNode parent_env = new EnvMarker(curr_env, null);           // Create the marker of the initial environment (env 0)
+        this.FrameList.push(parent_env);
+
+        Throwable[] failure = new Throwable[1];             // What stopped the runner, rethrown on this thread
+        Thread runner = new Thread(null, () -> {
+            long allocatedBefore = trackAllocations ? Allocations.currentThread() : 0;
+            try {
+                runDelta(0);
+            } catch (EmptyStackException e) {
+                // without env markers an unbalanced stack shows up as an underflow
+                failure[0] = new CSE_Exception("Error in Environments");
+            } catch (StackOverflowError e) {
+                failure[0] = new CSE_Exception("Recursion too deep for compiled code");
+            } catch (Throwable e) {
+                failure[0] = e;
+            } finally {
+                if (trackAllocations) {
+                    this.allocatedBytes = Allocations.currentThread() - allocatedBefore;
+                }
+            }
+        }, "rpal-compiled", COMPILED_STACK_SIZE);
+        runner.start();
+        try {
+            runner.join();
+        } catch (InterruptedException e) {
+            runner.interrupt();
+            Thread.currentThread().interrupt();
+            throw new CSE_Exception("Evaluation interrupted");
+        } finally {
+            if (this.out != null) {
+                this.out.flush();
+            }
+        }
+        if (failure[0] instanceof RuntimeException) {
+            throw (RuntimeException) failure[0];
+        } else if (failure[0] instanceof Error) {
+            throw (Error) failure[0];
+        } else if (failure[0] != null) {
+            // compiled code declares no checked exception, but bytecode does not enforce that
+            throw new IllegalStateException(failure[0]);
+        }
+    }
+
+    /*
+     * Runs a compiled delta that is not in tail position, completing a tail call it leaves pending
+     */
+    private void runDelta(int delta_no) {
+        this.compiled[delta_no].run(this);
+        if (this.tailLambda != null) {
+            CSNode lambda = this.tailLambda;
+            CSNode arg = this.tailArg;
+            this.tailLambda = this.tailArg = null;
+            this.callLambda(lambda, arg);
+        }
+    }
+
+    /*
+     * Applies a lambda for compiled code (rules 4 and 11): runs its body in a new environment,
+     * then keeps applying the tail calls the body leaves pending, all returning to the same environment
+     */
+    private void callLambda(CSNode lambda, CSNode arg) {
+        Frame return_env = this.curr_env;
+        while (true) {
+            CSNode envCSNode = this.enterEnv(lambda, arg, return_env);
+            this.FrameList.push(envCSNode);
+
+            this.compiled[lambda.getLambdano()].run(this);
+            this.FrameList.pop();
+            this.ruleSteps[5]++;
+
+            if (this.tailLambda == null) {
+                break;
+            }
+            lambda = this.tailLambda;
+            arg = this.tailArg;
+            this.tailLambda = this.tailArg = null;
+        }
+        this.curr_env = return_env;
+    }
+
+    /*
+     * Gamma for compiled code (rules 3, 4, 10, 11, 12 and 13)
+     */
+    public void gamma() {
+        this.apply(false);
     }
 
-    public void setControlList(Stack<CSNode> controlList) {
-        ControlList = controlList;
+    /*
+     * Gamma in tail position for compiled code: a lambda is not entered here but left pending
+     * for the loop that runs the enclosing lambda
+     */
+    public void tailGamma() {
+        this.apply(true);
     }
 
-    public Stack<CSNode> getStackList() {
-        return StackList;
+    private void apply(boolean tail) {
+        CSNode rator = this.StackList.pop();
+        switch (rator.getOpcode()) {
+            case IDENTIFIER:
+                this.applyBuiltin(rator);
+                break;
+
+            case LAMBDA:
+                CSNode arg = this.StackList.pop();
+                if (tail) {
+                    this.tailLambda = rator;
+                    this.tailArg = arg;
+                } else {
+                    this.callLambda(rator, arg);
+                }
+                break;
+
+            case TUPLE:
+                this.selectFromTuple(rator);
+                break;
+
+            case Y:
+                this.applyY();
+                break;
+
+            case ETA:
+                this.ruleSteps[13]++;
+                // apply the lambda to the eta node, then the result to the argument
+                this.StackList.push(rator);
+                this.StackList.push(lambdaOfEta(rator));
+                this.apply(false);
+                this.apply(tail);
+                break;
+
+            default:
+                break;
+        }
     }
 
-    public void setStackList(Stack<CSNode> stackList) {
-        StackList = stackList;
+    /*
+     * Conditional for compiled code (rule 8)
+     */
+    public void beta(int then_no, int else_no) {
+        int branch = this.selectBranch(then_no, else_no);
+        if (branch >= 0) {
+            this.runDelta(branch);
+        }
     }
 
-    public int getCurr_env() {
-        return curr_env;
+    /*
+     * Conditional in tail position for compiled code: a tail call made by the branch is left pending
+     */
+    public void tailBeta(int then_no, int else_no) {
+        int branch = this.selectBranch(then_no, else_no);
+        if (branch >= 0) {
+            this.compiled[branch].run(this);
+        }
     }
 
-    public void setCurr_env(int curr_env) {
-        this.curr_env = curr_env;
+
+    /*
+     * Rule 1: stacks a constant, or Y*. Constants are immutable, so the node itself is the value.
+     */
+    public void pushValue(CSNode node) {
+        this.ruleSteps[1]++;
+        this.StackList.push(node);
     }
 
-}
+    /*
+     * Rule 1: stacks the value of an identifier bound by an enclosing lambda, found by its lexical address
+     */
+    public void pushVariable(int depth, int slot) {
+        this.ruleSteps[1]++;
+        this.StackList.push(this.curr_env.lookUp(depth, slot));
+    }
+
+    /*
+     * Rule 1: stacks the value of an identifier, or the identifier itself if it names a built-in function
+     */
+    public void pushIdentifier(CSNode node) {
+        // If the identifier is bound by an enclosing lambda, fetch its value by lexical address
+        if (node.getDepth() >= 0) {
+            this.pushVariable(node.getDepth(), node.getSlot());
+
+        } else if (((Identifier) node).getBuiltin() != null) {
+            // Otherwise, if it was resolved to a built-in function, push it as-is
+            this.ruleSteps[1]++;
+            this.StackList.push(node);
+
+        } else {
+            // a function registered after the control structures were generated is still found by its name
+            Builtin builtin = this.builtins.lookUp(node.getName());
+            if (builtin == null) {
+                throw new CSE_Exception("Undefined variable : "+node.getName());
+            }
+            this.ruleSteps[1]++;
+            this.StackList.push(new Identifier(node.getName(), builtin, Tuple.EMPTY));
+        }
+    }
+
+    /*
+     * Rule 2: stacks a lambda closure tagged with the current environment
+     */
+    public void pushLambda(CSNode node) {
+        this.ruleSteps[2]++;
+        this.StackList.push(new Closure((Lambda) node, curr_env));  // Stack the lambda closure
+    }
+
+    /*
+     * Rule 3: applies a built-in function to the value under it on the stack
+     */
+    private void applyBuiltin(CSNode function) {
+        this.ruleSteps[3]++;
+        CSNode arg = this.StackList.pop();
+        Identifier builtin = (Identifier) function;
+        this.StackList.push(builtin.getBuiltin().applyTo(this, builtin, arg));
+    }
+
+    /*
+     * Rules 4 and 11: creates the environment a lambda's body runs in, binding its variables to the argument,
+     * and makes it current. Returns the env marker, which restores return_env when it is exited.
+     */
+    private CSNode enterEnv(CSNode lambda, CSNode arg, Frame return_env) {
+        if (this.cancelled) {
+            throw new CSE_Exception("Evaluation cancelled");
+        }
 
+        // rule 11 binds the elements of a tuple to several variables, rule 4 binds one
+        this.ruleSteps[(lambda.getLambdavar().size() > 1) ? 11 : 4]++;
+
+        // the new environment's parent is the one the closure was created in
+        Frame parent = ((Closure) lambda).getEnv();
+
+        // moving to next environment
+        env_counter++;
+
+        // if the lambda node tracks multiple parameters (formerly a comma node)
+        if (lambda.getLambdavar().size() > 1) {
+            // then its values are the elements of the argument tuple, which is immutable and bound as it is
+            this.curr_env = Frame.ofTuple(env_counter, parent, arg.getTuple());
+        } else {
+            // else just save the value
+            this.curr_env = Frame.of(env_counter, parent, arg);
+        }
+
+        // creating new environment marker to insert to control-stack
+        return new EnvMarker(this.curr_env, return_env);
+    }
+
+    /*
+     * Rule 10: selects the element of a tuple given by the index under it on the stack
+     */
+    private void selectFromTuple(CSNode tupleNode) {
+        this.ruleSteps[10]++;
+        // get the index of the element to select from tuple
+        CSNode index = this.StackList.pop();
+
+        // extract tuple
+        List<CSNode> tuple = tupleNode.getTuple();
+
+        if (index.getOpcode() != Opcode.INTEGER) {
+            throw new CSE_Exception("Tuple index is not an Integer");
+        }
+        if (!index.fitsLong() || index.getIntValue() < 1
+                || index.getIntValue() > tuple.size()) {
+            throw new CSE_Exception("Tuple index out of range : "+index.getName());
+        }
+        int index_i = (int) index.getIntValue();
 
+        // selecting the required tuple element
+        CSNode tup_elem = tuple.get(index_i-1);
+
+        // inserting the selected tuple element
+        this.StackList.push(tup_elem);
+    }
+
+    /*
+     * Rule 12: applying Y to a lambda turns it into an eta node
+     */
+    private void applyY() {
+        this.ruleSteps[12]++;
+        CSNode lambda = this.StackList.pop();
+        if (lambda.getOpcode() != Opcode.LAMBDA) {
+            throw new CSE_Exception("Y applied to a non-lambda");
+        }
+        this.StackList.push(new Eta((Closure) lambda));
+    }
+
+    /*
+     * Rule 13: the lambda an eta node stands for, with its environment
+     */
+    private static CSNode lambdaOfEta(CSNode eta) {
+        return ((Eta) eta).getLambda();
+    }
+
+    /*
+     * Rule 6: applies a binary operator to the two values on top of the stack
+     */
+    public void applyBinary(Opcode op) {
+        this.ruleSteps[6]++;
+        // obtain the two operands for the binary operation
+        CSNode topStackNode1 = this.StackList.pop();
+        CSNode topStackNode2 = this.StackList.pop();
+        switch (op) {
+            case ADD:
+                CSNode sumNode = BinaryOperations.add(topStackNode1, topStackNode2);
+                this.StackList.push(sumNode);
+                break;
+            case SUBTRACT:
+                CSNode diffNode = BinaryOperations.subtract(topStackNode1, topStackNode2);
+                this.StackList.push(diffNode);
+                break;
+            case MULTIPLY:
+                CSNode productNode =BinaryOperations.multiply(topStackNode1, topStackNode2);
+                this.StackList.push(productNode);
+                break;
+            case DIVIDE:
+                CSNode quotientNode =BinaryOperations.divide(topStackNode1, topStackNode2);
+                this.StackList.push(quotientNode);
+                break;
+            case POWER:
+                CSNode powerNode = BinaryOperations.power(topStackNode1, topStackNode2);
+                this.StackList.push(powerNode);
+                break;
+            case EQ:
+                CSNode isEqual = BinaryOperations.isEqual(topStackNode1, topStackNode2);
+                this.StackList.push(isEqual);
+                break;
+            case NE:
+                CSNode isNotEqual =BinaryOperations.isNotEqual(topStackNode1, topStackNode2);
+                this.StackList.push(isNotEqual);
+                break;
+            case LS:
+                CSNode isLess =BinaryOperations.isLessThan(topStackNode1, topStackNode2);
+                this.StackList.push(isLess);
+                break;
+            case GR:
+                CSNode isGreater = BinaryOperations.isGreaterThan(topStackNode1, topStackNode2);
+                this.StackList.push(isGreater);
+                break;
+            case LE:
+                CSNode isLessEqual = BinaryOperations.isLessEqualThan(topStackNode1, topStackNode2);
+                this.StackList.push(isLessEqual);
+                break;
+            case GE:
+                CSNode isGreaterEqual = BinaryOperations.isGreaterEqualThan(topStackNode1, topStackNode2);
+                this.StackList.push(isGreaterEqual);
+                break;
+            case OR:
+                CSNode logicOR = BinaryOperations.logicOR(topStackNode1, topStackNode2);
+                this.StackList.push(logicOR);
+                break;
+            case AND:
+                CSNode logicAND = BinaryOperations.logicAND(topStackNode1, topStackNode2);
+                this.StackList.push(logicAND);
+                break;
+            case AUG:
+                CSNode augNode =BinaryOperations.augment(topStackNode1, topStackNode2);
+                this.StackList.push(augNode);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /*
+     * Rule 7: applies a unary operator to the value on top of the stack
+     */
+    public void applyUnary(Opcode op) {
+        this.ruleSteps[7]++;
+        CSNode topStackNode1 = this.StackList.pop();
+        if (op == Opcode.NOT) {
+            this.StackList.push(UnaryOperations.logicNot(topStackNode1));
+        } else {
+            this.StackList.push(UnaryOperations.neg(topStackNode1));
+        }
+    }
+
+    /*
+     * Rule 8: pops the truth value of a conditional and returns the delta of the branch to take
+     * (-1 if the value is not a truth value)
+     */
+    private int selectBranch(int then_no, int else_no) {
+        this.ruleSteps[8]++;
+        CSNode topStackNode1 = this.StackList.pop();              // topmost stack element indicating true/false
+        if (topStackNode1 == TruthValue.TRUE) {
+            return then_no;
+        } else if (topStackNode1 == TruthValue.FALSE) {
+            return else_no;
+        }
+        return -1;
+    }
+
+    /*
+     * Rule 9: forms a tuple of the n values on top of the stack
+     */
+    public void formTuple(int n) {
+        this.ruleSteps[9]++;
+        // extracting each of the tuple items from the loop
+        // values are never modified once stacked, so they are shared rather than copied
+        CSNode[] elements = new CSNode[n];
+        for (int i=0; i<n; i++) {
+            elements[i] = this.StackList.pop();
+        }
+
+        // creating the tuple Object to be added into the stack
+        CSNode tuple = new TupleValue(Tuple.of(elements));
+
+        // adding the tuple object to the stack
+        this.StackList.push(tuple);
+    }
+
+    /*
+     * Control structure nodes the machine has no rule for
+     */
+    public void unknownOperation(CSNode node) {
+        throw new CSE_Exception("Unknown operation : "+node.getName());
+    }
+
+    /*
+     * Number of nodes currently on the control stack
+     */
+    public int getControlSize() {
+        return ControlList.size();
+    }
+
+    /*
+     * Number of values currently on the stack
+     */
+    public int getStackSize() {
+        return StackList.size();
+    }
+
+    /*
+     * Value on top of the stack, which is the value of the program once runCSE has finished
+     */
+    public CSNode getResult() {
+        return StackList.peek();
+    }
+
+    /*
+     * Number of the current environment
+     */
+    public int getCurr_env() {
+        return curr_env.getNumber();
+    }
+
+}
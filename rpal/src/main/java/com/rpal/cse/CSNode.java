@@ -1,194 +1,152 @@
 package com.rpal.cse;
 
 /*
- * Class representing a node in the Control Structures and CSE Machine
+ * A node of the control structures, or a value of the CSE machine.
+ * Each kind of node is its own class holding only the fields it needs:
+ * IntegerValue, StringValue, TruthValue and TupleValue (which also stands for nil) for data,
+ * Closure and Eta for functions on the stack, EnvMarker for environment markers,
+ * and Instruction, Identifier and Lambda for the rest of the control structures.
+ * All of them are immutable, so constants are stacked as they are, and control structures
+ * can be shared by machines running on other threads.
  */
 
 
-import java.util.ArrayList;
+import java.math.BigInteger;
+import java.util.Collections;
 import java.util.List;
 
 
-public class CSNode {
-    private boolean isTuple;            // Flag to indicate if the node is a tuple
-    private List<CSNode> tuple;         // Elements of the tuple, if this node represents a tuple
-    private String type;                // Type of the node (e.g., INTEGER, STRING, TRUTHVALUE, lambdaClosure)
-    private String name;                // Value of the node (used for INTEGER, STRING, TRUTHVALUE types)
-    private List<String> lambdavar;     // Variables enclosed in a lambda closure
-    private int lambdano;               // Index of the corresponding delta in the control structure (used in lambda nodes)
-    private int envno;                  // Environment number (used in lambda and environment nodes)
-    private int thenno;                 // Delta index for the true branch of a beta node
-    private int elseno;                 // Delta index for the false branch of a beta node
-    private int tauno;                  // Number of elements in a tau node (tuple)
-
-    public CSNode() {
-        isTuple = false;
-        tuple = new ArrayList<CSNode>();
-        lambdavar = new ArrayList<String>();
-        type = name = "";
-        lambdano = envno = thenno = elseno = tauno = -1;
-    }
-
-    // Constructor for simple nodes (e.g., identifiers, constants)
-    // Parameters: type and name
-    public CSNode(String t, String n) {
-        type = t;
-        name = n;
-        isTuple = false;
-        tuple = new ArrayList<CSNode>();
-        lambdavar = new ArrayList<String>();
-        lambdano = envno = thenno = elseno = tauno = -1;
-    }
-
-    // Constructor for lambda closure nodes
-    // Parameters: type (should be "lambdaClosure"), list of lambda variables, and delta index
-    public CSNode(String t, List<String> varLambda, int lambda_no) {
-        type = t;
-        lambdavar = varLambda;
-        lambdano = lambda_no;
-        isTuple = false;
-        tuple = new ArrayList<CSNode>();
-        name = "";
-        envno = thenno = elseno = tauno = -1;
-    }
-
-    // Constructor for environment nodes
-    // Parameters: type and environment number
-    public CSNode(String t, int env_no) {
-        type = t;
-        envno = env_no;
-        isTuple = false;
-        tuple = new ArrayList<CSNode>();
-        name = "";
-        lambdavar = new ArrayList<String>();
-        lambdano = thenno = elseno = tauno = -1;
-    }
-
-    // Constructor for beta nodes (conditional control structure)
-    // Parameters: type (should be "beta"), delta index for true and false branches
-    public CSNode(String t, int then_no, int else_no) {
-        type = t;
-        thenno = then_no;
-        elseno = else_no;
-        isTuple = false;
-        tuple = new ArrayList<CSNode>();
-        name = "";
-        lambdavar = new ArrayList<String>();
-        lambdano = envno = tauno = -1;
-    }
-
-
-
-    // used to create an object for inserting a delta structure into the control stack 
-        // delta no is stored in the envno parameter
-    public CSNode(String t, int delta_no, List<CSNode> delta_struct) {
-        type = t;
-        envno = delta_no;
-        tuple = delta_struct;
-        isTuple = false;
-        name =  "";
-        lambdavar = new ArrayList<String>();
-        lambdano = thenno = elseno = tauno = -1;
+public abstract sealed class CSNode
+        permits IntegerValue, StringValue, TruthValue, TupleValue, Closure, Eta, EnvMarker, Instruction, Identifier, Lambda {
+    private final Opcode opcode;        // Operation code, which also gives the type of the node
+
+    CSNode(Opcode opcode) {
+        this.opcode = opcode;
     }
 
-    public boolean getIsTuple() {
-        return isTuple;
+    /*
+     * Leaf node of a control structure, from its type and name as the standardized tree gives them
+     * (an integer literal gets its value from its text)
+     */
+    public static CSNode of(String type, String name) {
+        Opcode opcode = Opcode.of(type, name);
+        switch (opcode) {
+            case INTEGER:
+                return IntegerValue.parse(name);
+            case STRING:
+                return new StringValue(name);
+            case TRUTHVALUE:
+                return TruthValue.of(name.equals("true"));
+            case NIL:
+                return TupleValue.NIL;
+            case IDENTIFIER:
+                return new Identifier(name, -1);
+            default:
+                return new Instruction(opcode, name);
+        }
     }
 
-    public List<CSNode> getTuple() {
-        return tuple;
+    /*
+     * Operation code of the node, fixed when it is created
+     */
+    public final Opcode getOpcode() {
+        return opcode;
     }
 
+    /*
+     * Type of the node (e.g., INTEGER, STRING, TRUTHVALUE, lambdaClosure)
+     */
     public String getType() {
-        return type;
+        return opcode.getType();
     }
 
+    /*
+     * Text of the node: the value of a constant, or the name of an identifier or operator
+     */
     public String getName() {
-        return name;
+        return "";
     }
 
-    public List<String> getLambdavar() {
-        return lambdavar;
+    /*
+     * Tells whether the node is a tuple value (nil included)
+     */
+    public boolean getIsTuple() {
+        return false;
     }
 
-    public int getLambdano() {
-        return lambdano;
+    /*
+     * Elements of a tuple, the values bound by an environment, or the arguments a built-in was given so far
+     */
+    public List<CSNode> getTuple() {
+        return Tuple.EMPTY;
     }
 
-    public int getEnvno() {
-        return envno;
+    /*
+     * Text of a STRING node as a rope
+     */
+    public Rope getRope() {
+        return Rope.of(getName());
     }
 
-    public int getThenno() {
-        return thenno;
+    /*
+     * Tells whether the value of an INTEGER node is held in a long
+     */
+    public boolean fitsLong() {
+        return true;
     }
 
-    public int getElseno() {
-        return elseno;
+    /*
+     * Value of an INTEGER node that fits in a long
+     */
+    public long getIntValue() {
+        return 0;
     }
 
-    public int getTauno() {
-        return tauno;
+    /*
+     * Value of an INTEGER node of any size
+     */
+    public BigInteger getBigValue() {
+        return BigInteger.valueOf(getIntValue());
     }
 
-    public void setIsTuple(boolean isTuple) {
-        this.isTuple = isTuple;
+    public List<String> getLambdavar() {
+        return Collections.emptyList();
     }
 
-    public void setTuple(List<CSNode> tuple) {
-        this.tuple = tuple;
+    public int getLambdano() {
+        return -1;
     }
 
-    public void setType(String type) {
-        this.type = type;
+    public int getEnvno() {
+        return -1;
     }
 
-    public void setName(String name) {
-        this.name = name;
+    public int getPrevenv() {
+        return -1;
     }
 
-    public void setLambdavar(List<String> lambdavar) {
-        this.lambdavar = lambdavar;
+    public int getThenno() {
+        return -1;
     }
 
-    public void setLambdano(int lambdano) {
-        this.lambdano = lambdano;
+    public int getElseno() {
+        return -1;
     }
 
-    public void setEnvno(int envno) {
-        this.envno = envno;
+    public int getTauno() {
+        return -1;
     }
 
-    public void setThenno(int thenno) {
-        this.thenno = thenno;
+    public int getDepth() {
+        return -1;
     }
 
-    public void setElseno(int elseno) {
-        this.elseno = elseno;
+    public int getSlot() {
+        return -1;
     }
 
-    public void setTauno(int tauno) {
-        this.tauno = tauno;
-    }
-    
-    /*
-     * Function to duplicate contents of Control Structure Nodes
-     */
-    public CSNode duplicate() {
-        CSNode dupNode = new CSNode();
-        dupNode.setIsTuple(this.getIsTuple());
-        dupNode.setTuple(this.getTuple());
-        dupNode.setType(this.getType());
-        dupNode.setName(this.getName());
-        dupNode.setLambdavar(this.getLambdavar());
-        dupNode.setLambdano(this.getLambdano());
-        dupNode.setEnvno(this.getEnvno());
-        dupNode.setThenno(this.getThenno());
-        dupNode.setElseno(this.getElseno());
-        dupNode.setTauno(this.getTauno());
-
-        return dupNode;
+    public int getSymbol() {
+        return -1;
     }
 
 }
-
@@ -0,0 +1,39 @@
+package com.rpal.cse;
+
+import java.util.List;
+
+/*
+ * Lambda closure on the stack: a lambda, the code it runs, with the environment it was created in (rule 2).
+ */
+public final class Closure extends CSNode {
+    private final Lambda lambda;        // Lambda of the control structures the closure runs
+    private final Frame env;            // Environment the lambda was created in
+
+    public Closure(Lambda lambda, Frame env) {
+        super(Opcode.LAMBDA);
+        this.lambda = lambda;
+        this.env = env;
+    }
+
+    /*
+     * Environment the lambda was created in, which becomes the parent of the environments it runs in
+     */
+    public Frame getEnv() {
+        return env;
+    }
+
+    @Override
+    public List<String> getLambdavar() {
+        return lambda.getLambdavar();
+    }
+
+    @Override
+    public int getLambdano() {
+        return lambda.getLambdano();
+    }
+
+    @Override
+    public int getEnvno() {
+        return env.getNumber();
+    }
+}
@@ -0,0 +1,12 @@
+package com.rpal.cse;
+
+/*
+ * A control structure (delta) compiled to JVM code.
+ * Running it applies the CSE rules of its nodes, in the order the machine would pop them from the control,
+ * through the public rule methods of the machine it is given.
+ */
+public interface CompiledDelta {
+
+    void run(CSE machine);
+
+}
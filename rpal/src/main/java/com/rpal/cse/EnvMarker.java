@@ -0,0 +1,37 @@
+package com.rpal.cse;
+
+/*
+ * Environment marker, pushed on both the control and the stack when an environment is entered.
+ * Exiting it (rule 5) makes the environment saved in it current again.
+ */
+public final class EnvMarker extends CSNode {
+    private final Frame env;            // Environment entered
+    private final Frame prev;           // Environment to restore when the marker is exited (null for the root)
+
+    public EnvMarker(Frame env, Frame prev) {
+        super(Opcode.ENV);
+        this.env = env;
+        this.prev = prev;
+    }
+
+    public Frame getEnv() {
+        return env;
+    }
+
+    /*
+     * Environment to restore when the marker is exited (null for the root)
+     */
+    public Frame getPrev() {
+        return prev;
+    }
+
+    @Override
+    public int getEnvno() {
+        return env.getNumber();
+    }
+
+    @Override
+    public int getPrevenv() {
+        return (prev == null) ? -1 : prev.getNumber();
+    }
+}
@@ -0,0 +1,38 @@
+package com.rpal.cse;
+
+import java.util.List;
+
+/*
+ * Eta closure, made by applying Y to a lambda closure (rule 12).
+ * It keeps that closure, which rule 13 applies to the eta at every recursive call without making a new one.
+ */
+public final class Eta extends CSNode {
+    private final Closure lambda;       // Lambda closure the eta stands for
+
+    public Eta(Closure lambda) {
+        super(Opcode.ETA);
+        this.lambda = lambda;
+    }
+
+    /*
+     * Lambda closure the eta stands for
+     */
+    public Closure getLambda() {
+        return lambda;
+    }
+
+    @Override
+    public List<String> getLambdavar() {
+        return lambda.getLambdavar();
+    }
+
+    @Override
+    public int getLambdano() {
+        return lambda.getLambdano();
+    }
+
+    @Override
+    public int getEnvno() {
+        return lambda.getEnvno();
+    }
+}
@@ -0,0 +1,70 @@
+package com.rpal.cse;
+
+import java.util.List;
+
+/*
+ * Environment of the CSE machine: the values bound by one application of a lambda, and the environment
+ * the lambda was created in. Closures and env markers refer to their frame directly, so a variable is
+ * found by following parents, and a frame nothing refers to any more is reclaimed like any other object.
+ * A frame is only read once made, so the control structures it came from stay shared and read-only.
+ */
+public final class Frame {
+    private final int number;           // Environment number, in the order environments are created (0 for the root)
+    private final Frame parent;         // Environment the lambda was created in (null for the root)
+    private final CSNode value;         // Value of the only variable, when the lambda binds one
+    private final List<CSNode> values;  // Values of the variables, when the lambda binds a tuple (null otherwise)
+
+    private Frame(int number, Frame parent, CSNode value, List<CSNode> values) {
+        this.number = number;
+        this.parent = parent;
+        this.value = value;
+        this.values = values;
+    }
+
+    /*
+     * Root environment, which binds nothing
+     */
+    public static Frame root() {
+        return new Frame(0, null, null, null);
+    }
+
+    /*
+     * Environment binding a single variable (rule 4)
+     */
+    public static Frame of(int number, Frame parent, CSNode value) {
+        return new Frame(number, parent, value, null);
+    }
+
+    /*
+     * Environment binding several variables to the elements of a tuple, which are not modified afterwards (rule 11)
+     */
+    public static Frame ofTuple(int number, Frame parent, List<CSNode> values) {
+        return new Frame(number, parent, null, values);
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public Frame getParent() {
+        return parent;
+    }
+
+    /*
+     * Value of the variable at the given position among the variables of this environment
+     */
+    public CSNode get(int slot) {
+        return (values == null) ? value : values.get(slot);
+    }
+
+    /*
+     * Value of a variable by its lexical address: walk up 'depth' environments, then take the one at 'slot'
+     */
+    public CSNode lookUp(int depth, int slot) {
+        Frame env = this;
+        for (int i = 0; i < depth; i++) {
+            env = env.parent;
+        }
+        return env.get(slot);
+    }
+}
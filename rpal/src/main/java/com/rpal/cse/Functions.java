@@ -1,111 +1,92 @@
 package com.rpal.cse;
-import java.util.ArrayList;
-import java.util.Collections;
+import com.rpal.io.OutputSink;
 
 
 
 /*
- * This class provides implementations for RPAL built-in functions
+ * This class provides implementations for RPAL built-in functions, which Builtins registers by name
  */
 public class Functions {
 
     /*
-     * Checks if a given identifier corresponds to an RPAL built-in function.
+     * Prints a value based on its type (integer, string, tuple, etc.) to the given sink
      */
-    public static boolean checkInBuilt(String name) {
-        ArrayList<String> functionNames = new ArrayList<String>();
-
-        Collections.addAll(functionNames, "Print","Stem","Stern","Conc","Order","Null",
-                "Isinteger","Istruthvalue","Isstring","Istuple","Isfunction","Isdummy","ItoS");
-
-        return functionNames.contains(name);
-    }
-
-    /*
-     * Prints a value based on its type (integer, string, tuple, etc.)
-     */
-    public static void Print(CSNode node) {
-        switch (node.getType()) {
+    public static void Print(CSNode node, OutputSink out) {
+        switch (node.getOpcode()) {
 
             // Handle direct values like integers, strings, truth values, and nil
-            case "INTEGER":
-            case "STRING":
-            case "TRUTHVALUE":
-            case "NIL":
-                // Replace escape sequences for newline and tab
-                if (node.getName().contains("\\n")) {
-                    node.setName(node.getName().replace("\\n", System.lineSeparator()));
-                }
-                if(node.getName().contains("\\t")) {
-                    node.setName(node.getName().replace("\\t", "\t"));
-                }
-                System.out.print(node.getName());
+            case INTEGER:
+            case STRING:
+            case TRUTHVALUE:
+            case NIL:
+                printEscaped(node.getName(), out);
                 break;
 
             // Handle tuple printing
-            case "tau":
-            case "tuple":
-                System.out.print("(");
+            case TAU:
+            case TUPLE:
+                out.print('(');
                 for (int i = 0; i < node.getTuple().size(); i++) {
-                    System.out.print(node.getTuple().get(i).getName());
+                    out.print(node.getTuple().get(i).getName());
                     if (i != node.getTuple().size() - 1) {
-                        System.out.print(", ");
+                        out.print(", ");
                     }
                 }
-                System.out.print(")");
+                out.print(')');
                 break;
 
             // Handle lambda closure printing
-            case "lambdaClosure":
-                System.out.print("[lambda closure: ");
+            case LAMBDA:
+                out.print("[lambda closure: ");
                 for (int i = 0; i < node.getLambdavar().size(); i++) {
-                    System.out.print(node.getLambdavar().get(i));
+                    out.print(node.getLambdavar().get(i));
                 }
-                System.out.print(": ");
-                System.out.print(node.getLambdano());
-                System.out.print("]");
+                out.print(": ");
+                out.print(Integer.toString(node.getLambdano()));
+                out.print(']');
                 break;
 
             default:
-                System.out.println(); // Default behavior: print a newline
+                out.print(System.lineSeparator()); // Default behavior: print a newline
                 break;
         }
     }
 
     /*
-     * Returns the first character of a string node.
+     * Prints text with the escape sequences for newline and tab replaced, as it is copied to the sink
      */
-    public static CSNode Stem(CSNode node) {
-        if (node.getType().equals("STRING")) {
-            CSNode newNode = node.duplicate();
-            newNode.setName(newNode.getName().substring(0,1));
-            return newNode;
-        } else {
-            throw new CSE_Exception("Argument is not a string");
+    private static void printEscaped(String text, OutputSink out) {
+        int from = 0;
+        int escape = text.indexOf('\\');
+        while (escape >= 0 && escape + 1 < text.length()) {
+            char next = text.charAt(escape + 1);
+            if (next == 'n' || next == 't') {
+                out.print(text, from, escape);
+                out.print(next == 'n' ? System.lineSeparator() : "\t");
+                from = escape + 2;
+            }
+            escape = text.indexOf('\\', (next == 'n' || next == 't') ? escape + 2 : escape + 1);
         }
+        out.print(text, from, text.length());
     }
 
     /*
-     * Returns the string excluding its first character.
+     * Returns the first character of a string node.
      */
-    public static CSNode Stern(CSNode node) {
-        if (node.getType().equals("STRING")) {
-            CSNode newNode = node.duplicate();
-            newNode.setName(newNode.getName().substring(1));
-            return newNode;
+    public static CSNode Stem(CSNode node) {
+        if (node.getOpcode() == Opcode.STRING) {
+            return new StringValue(node.getRope().first());
         } else {
             throw new CSE_Exception("Argument is not a string");
         }
     }
 
     /*
-     * Wraps the first string node for concatenation.
+     * Returns the string excluding its first character.
      */
-    public static CSNode ConcOne(CSNode node1) {
-        if (node1.getType().equals("STRING")) {
-            CSNode concOne = new CSNode("IDENTIFIER","ConcOne");
-            concOne.getTuple().add(node1);
-            return concOne;
+    public static CSNode Stern(CSNode node) {
+        if (node.getOpcode() == Opcode.STRING) {
+            return new StringValue(node.getRope().rest());
         } else {
             throw new CSE_Exception("Argument is not a string");
         }
@@ -115,9 +96,8 @@ public class Functions {
      * Concatenates two string nodes.
      */
     public static CSNode Conc(CSNode node1, CSNode node2) {
-        if (node2.getType().equals("STRING")) {
-            String conc = node1.getName().concat(node2.getName());
-            return new CSNode("STRING", conc);
+        if (node2.getOpcode() == Opcode.STRING) {
+            return new StringValue(node1.getRope().concat(node2.getRope()));
         } else {
             throw new CSE_Exception("Argument is not a string");
         }
@@ -129,7 +109,7 @@ public class Functions {
     public static CSNode Order(CSNode tupleNode) {
         if (tupleNode.getIsTuple()) {
             int num = tupleNode.getTuple().size();
-            return new CSNode("INTEGER", String.valueOf(num));
+            return new IntegerValue(num);
         } else {
             throw new CSE_Exception("Attempt to find the order of a non-tuple");
         }
@@ -140,9 +120,9 @@ public class Functions {
      */
     public static CSNode Null(CSNode tupleNode) {
         if (tupleNode.getTuple().size() == 0 && tupleNode.getIsTuple()) {
-            return new CSNode("TRUTHVALUE", "true");
+            return TruthValue.TRUE;
         } else {
-            return new CSNode("TRUTHVALUE", "false");
+            return TruthValue.FALSE;
         }
     }
 
@@ -150,10 +130,10 @@ public class Functions {
      * Type-check: Returns true if node is of type INTEGER.
      */
     public static CSNode Isinteger(CSNode node) {
-        if (node.getType().equals("INTEGER")) {
-            return new CSNode("TRUTHVALUE", "true");
+        if (node.getOpcode() == Opcode.INTEGER) {
+            return TruthValue.TRUE;
         } else {
-            return new CSNode("TRUTHVALUE", "false");
+            return TruthValue.FALSE;
         }
     }
 
@@ -161,10 +141,10 @@ public class Functions {
      * Type-check: Returns true if node is of type TRUTHVALUE.
      */
     public static CSNode Istruthvalue(CSNode node) {
-        if (node.getType().equals("TRUTHVALUE")) {
-            return new CSNode("TRUTHVALUE", "true");
+        if (node.getOpcode() == Opcode.TRUTHVALUE) {
+            return TruthValue.TRUE;
         } else {
-            return new CSNode("TRUTHVALUE", "false");
+            return TruthValue.FALSE;
         }
     }
 
@@ -172,10 +152,10 @@ public class Functions {
      * Type-check: Returns true if node is of type STRING.
      */
     public static CSNode Isstring(CSNode node) {
-        if (node.getType().equals("STRING")) {
-            return new CSNode("TRUTHVALUE", "true");
+        if (node.getOpcode() == Opcode.STRING) {
+            return TruthValue.TRUE;
         } else {
-            return new CSNode("TRUTHVALUE", "false");
+            return TruthValue.FALSE;
         }
     }
 
@@ -184,20 +164,21 @@ public class Functions {
      */
     public static CSNode Istuple(CSNode node) {
         if (node.getIsTuple()) { 
-            return new CSNode("TRUTHVALUE", "true");
+            return TruthValue.TRUE;
         } else {
-            return new CSNode("TRUTHVALUE", "false");
+            return TruthValue.FALSE;
         }
     }
 
     /*
-     * Type-check: Returns true if node is a function.
+     * Type-check: Returns true if node is a function (a lambda closure, an eta or a built-in).
      */
     public static CSNode Isfunction(CSNode node) {
-        if (node.getType().equals("FUNCTION")) { 
-            return new CSNode("TRUTHVALUE", "true");
+        Opcode type = node.getOpcode();
+        if (type == Opcode.LAMBDA || type == Opcode.ETA || type == Opcode.IDENTIFIER) {
+            return TruthValue.TRUE;
         } else {
-            return new CSNode("TRUTHVALUE", "false");
+            return TruthValue.FALSE;
         }
     }
 
@@ -205,10 +186,10 @@ public class Functions {
      * Type-check: Returns true if node is a dummy type.
      */
     public static CSNode Isdummy(CSNode node) {
-        if (node.getType().equals("DUMMY")) {
-            return new CSNode("TRUTHVALUE", "true");
+        if (node.getOpcode() == Opcode.DUMMY) {
+            return TruthValue.TRUE;
         } else {
-            return new CSNode("TRUTHVALUE", "false");
+            return TruthValue.FALSE;
         }
     }
 
@@ -216,10 +197,8 @@ public class Functions {
      * Converts an integer node to a string node.
      */
     public static CSNode intToStr(CSNode intNode) {
-        if (intNode.getType().equals("INTEGER")) {
-            CSNode strNode = intNode.duplicate();
-            strNode.setType("STRING");
-            return strNode;
+        if (intNode.getOpcode() == Opcode.INTEGER) {
+            return new StringValue(intNode.getName());
         } else {
             throw new CSE_Exception("Argument is not an Integer");
         }
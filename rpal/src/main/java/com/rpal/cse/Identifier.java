@@ -0,0 +1,91 @@
+package com.rpal.cse;
+
+import java.util.List;
+
+/*
+ * Identifier of a control structure. One bound by an enclosing lambda gets its lexical address from the Resolver,
+ * any other names a built-in function, which the Resolver finds in a registry (see Builtins): the identifier itself
+ * is then the function on the stack, with the arguments it was given so far when it takes several (Conc).
+ */
+public final class Identifier extends CSNode {
+    private final String name;
+    private final int symbol;           // Symbol id of the name (-1 if the node is not a source identifier)
+    private final int depth;            // Number of environments to walk up to reach the binding (-1 if not bound)
+    private final int slot;             // Position of the binding among the variables of that environment
+    private final Builtin builtin;      // Built-in function the name stands for when it is not bound (null if none)
+    private final List<CSNode> args;    // Arguments of a partially applied built-in
+
+    public Identifier(String name, int symbol) {
+        this(name, symbol, -1, -1, null, Tuple.EMPTY);
+    }
+
+    /*
+     * Identifier at a known lexical address
+     */
+    public Identifier(String name, int depth, int slot) {
+        this(name, -1, depth, slot, null, Tuple.EMPTY);
+    }
+
+    /*
+     * Built-in function applied to the given arguments so far
+     */
+    public Identifier(String name, Builtin builtin, List<CSNode> args) {
+        this(name, -1, -1, -1, builtin, args);
+    }
+
+    private Identifier(String name, int symbol, int depth, int slot, Builtin builtin, List<CSNode> args) {
+        super(Opcode.IDENTIFIER);
+        this.name = name;
+        this.symbol = symbol;
+        this.depth = depth;
+        this.slot = slot;
+        this.builtin = builtin;
+        this.args = args;
+    }
+
+    /*
+     * The same identifier, bound at the given lexical address
+     */
+    public Identifier withAddress(int depth, int slot) {
+        return new Identifier(name, symbol, depth, slot, null, args);
+    }
+
+    /*
+     * The same identifier, standing for the given built-in function
+     */
+    public Identifier withBuiltin(Builtin builtin) {
+        return new Identifier(name, symbol, depth, slot, builtin, args);
+    }
+
+    /*
+     * Built-in function the identifier stands for (null if it is bound, or was not resolved to one)
+     */
+    public Builtin getBuiltin() {
+        return builtin;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public List<CSNode> getTuple() {
+        return args;
+    }
+
+    @Override
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public int getSlot() {
+        return slot;
+    }
+
+    @Override
+    public int getSymbol() {
+        return symbol;
+    }
+}
@@ -0,0 +1,52 @@
+package com.rpal.cse;
+
+/*
+ * Any other node of the control structures: gamma, operators, beta and tau, and the constants Y and dummy.
+ * Beta has the deltas of its two branches as operands, tau the number of elements of the tuple it forms.
+ */
+public final class Instruction extends CSNode {
+    public static final Instruction GAMMA = new Instruction(Opcode.GAMMA, "gamma");
+
+    private final String name;
+    private final int first;            // Delta of the true branch of beta, or the element count of tau
+    private final int second;           // Delta of the false branch of beta
+
+    public Instruction(Opcode opcode, String name) {
+        this(opcode, name, -1, -1);
+    }
+
+    private Instruction(Opcode opcode, String name, int first, int second) {
+        super(opcode);
+        this.name = name;
+        this.first = first;
+        this.second = second;
+    }
+
+    public static Instruction beta(int then_no, int else_no) {
+        return new Instruction(Opcode.BETA, "", then_no, else_no);
+    }
+
+    public static Instruction tau(int n) {
+        return new Instruction(Opcode.TAU, "tau", n, -1);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getThenno() {
+        return (getOpcode() == Opcode.BETA) ? first : -1;
+    }
+
+    @Override
+    public int getElseno() {
+        return (getOpcode() == Opcode.BETA) ? second : -1;
+    }
+
+    @Override
+    public int getTauno() {
+        return (getOpcode() == Opcode.TAU) ? first : -1;
+    }
+}
@@ -0,0 +1,62 @@
+package com.rpal.cse;
+
+import java.math.BigInteger;
+
+/*
+ * INTEGER value, held in a long whenever it fits in one.
+ * The text of a number computed at run time is only produced if it is printed or converted to a string.
+ */
+public final class IntegerValue extends CSNode {
+    private final long value;           // Value, when it fits in a long
+    private final BigInteger big;       // Value that does not fit in a long (null otherwise)
+    private String text;                // Decimal text, kept once produced
+
+    public IntegerValue(long value) {
+        super(Opcode.INTEGER);
+        this.value = value;
+        this.big = null;
+    }
+
+    public IntegerValue(BigInteger value) {
+        super(Opcode.INTEGER);
+        if (value.bitLength() < 64) {
+            this.value = value.longValue();
+            this.big = null;
+        } else {
+            this.value = 0;
+            this.big = value;
+        }
+    }
+
+    /*
+     * Integer literal, parsed once when the control structure is built. It keeps its text as written.
+     */
+    public static IntegerValue parse(String text) {
+        IntegerValue literal = (text.length() < 19) ? new IntegerValue(Long.parseLong(text)) : new IntegerValue(new BigInteger(text));
+        literal.text = text;
+        return literal;
+    }
+
+    @Override
+    public String getName() {
+        if (text == null) {
+            text = (big != null) ? big.toString() : Long.toString(value);
+        }
+        return text;
+    }
+
+    @Override
+    public boolean fitsLong() {
+        return big == null;
+    }
+
+    @Override
+    public long getIntValue() {
+        return value;
+    }
+
+    @Override
+    public BigInteger getBigValue() {
+        return (big != null) ? big : BigInteger.valueOf(value);
+    }
+}
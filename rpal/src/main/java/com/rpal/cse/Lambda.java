@@ -0,0 +1,49 @@
+package com.rpal.cse;
+
+import java.util.List;
+
+/*
+ * Lambda node of a control structure: the variables it binds and the delta of its body.
+ * Running it (rule 2) stacks a Closure of it over the current environment.
+ */
+public final class Lambda extends CSNode {
+    private static final int[] NO_SYMBOLS = new int[0];
+
+    private final List<String> variables;  // Variables bound by the lambda
+    private final int[] symbols;            // Symbol ids of the variables, used to resolve identifiers (may be empty)
+    private final int body;                 // Delta of the body
+    private final boolean overTuple;        // Whether the lambda binds a tuple of variables (formerly a comma node)
+
+    public Lambda(List<String> variables, int[] symbols, int body, boolean overTuple) {
+        super(Opcode.LAMBDA);
+        this.variables = variables;
+        this.symbols = symbols;
+        this.body = body;
+        this.overTuple = overTuple;
+    }
+
+    /*
+     * Lambda whose variables have no symbol ids, as read back from a compiled program
+     */
+    public Lambda(List<String> variables, int body, boolean overTuple) {
+        this(variables, NO_SYMBOLS, body, overTuple);
+    }
+
+    public boolean bindsTuple() {
+        return overTuple;
+    }
+
+    public int[] getLambdasym() {
+        return symbols;
+    }
+
+    @Override
+    public List<String> getLambdavar() {
+        return variables;
+    }
+
+    @Override
+    public int getLambdano() {
+        return body;
+    }
+}
@@ -0,0 +1,156 @@
+package com.rpal.cse;
+
+import java.util.List;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/*
+ * Built-in function implemented in Java by the host, with the types of its parameters declared.
+ * Each argument is checked against its type as it is given, so a wrong one fails the gamma that passes it.
+ * Register one in a Builtins registry to call it from RPAL like Order or Stem:
+ *
+ *     builtins.register(Native.integersToInteger("Mod", Math::floorMod));
+ *
+ * The typed forms hand the Java function plain longs and Strings, and wrap only its result.
+ */
+public final class Native extends Builtin {
+
+    /*
+     * Type of a parameter
+     */
+    public enum Type {
+        INTEGER("an integer"),
+        STRING("a string"),
+        TRUTHVALUE("a truth value"),
+        TUPLE("a tuple"),
+        ANY("a value");
+
+        private final String description;   // Used in the message of a failed check
+
+        Type(String description) {
+            this.description = description;
+        }
+
+        /*
+         * Tells whether a value is of this type (nil is a tuple)
+         */
+        public boolean accepts(CSNode value) {
+            switch (this) {
+                case INTEGER:
+                    return value.getOpcode() == Opcode.INTEGER;
+                case STRING:
+                    return value.getOpcode() == Opcode.STRING;
+                case TRUTHVALUE:
+                    return value.getOpcode() == Opcode.TRUTHVALUE;
+                case TUPLE:
+                    return value.getIsTuple();
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /*
+     * Java function on the values of all the arguments, in order
+     */
+    public interface Body {
+        CSNode apply(List<CSNode> args);
+    }
+
+    /*
+     * How the arguments reach the Java function: the ones given before the last, then the last one
+     */
+    private interface Call {
+        CSNode call(List<CSNode> given, CSNode last);
+    }
+
+    private final Type[] parameters;    // Declared types of the parameters, one per argument
+    private final Call call;
+
+    private Native(String name, Type[] parameters, Call call) {
+        super(name, parameters.length);
+        this.parameters = parameters.clone();
+        this.call = call;
+    }
+
+    /*
+     * Function on values of the declared types, which the body gets as a list
+     */
+    public static Native of(String name, Body body, Type... parameters) {
+        return new Native(name, parameters, (given, last) -> body.apply(
+                given.isEmpty() ? Tuple.of(new CSNode[] { last }) : Tuple.from(given).append(last)));
+    }
+
+    /*
+     * Function from an integer to an integer
+     */
+    public static Native integerToInteger(String name, LongUnaryOperator function) {
+        return new Native(name, new Type[] { Type.INTEGER },
+                (given, last) -> new IntegerValue(function.applyAsLong(toLong(name, last))));
+    }
+
+    /*
+     * Function from two integers to an integer
+     */
+    public static Native integersToInteger(String name, LongBinaryOperator function) {
+        return new Native(name, new Type[] { Type.INTEGER, Type.INTEGER },
+                (given, last) -> new IntegerValue(function.applyAsLong(toLong(name, given.get(0)), toLong(name, last))));
+    }
+
+    /*
+     * Test on an integer
+     */
+    public static Native integerToTruthvalue(String name, LongPredicate function) {
+        return new Native(name, new Type[] { Type.INTEGER },
+                (given, last) -> TruthValue.of(function.test(toLong(name, last))));
+    }
+
+    /*
+     * Function from a string to a string
+     */
+    public static Native stringToString(String name, UnaryOperator<String> function) {
+        return new Native(name, new Type[] { Type.STRING },
+                (given, last) -> new StringValue(function.apply(last.getName())));
+    }
+
+    /*
+     * Function from a string to an integer
+     */
+    public static Native stringToInteger(String name, ToLongFunction<String> function) {
+        return new Native(name, new Type[] { Type.STRING },
+                (given, last) -> new IntegerValue(function.applyAsLong(last.getName())));
+    }
+
+    /*
+     * Declared type of a parameter
+     */
+    public Type getParameter(int position) {
+        return parameters[position];
+    }
+
+    @Override
+    protected void check(int position, CSNode arg) {
+        Type type = parameters[position];
+        if (!type.accepts(arg)) {
+            throw new CSE_Exception("Argument of " + getName() + " is not " + type.description);
+        }
+    }
+
+    @Override
+    public CSNode apply(CSE machine, List<CSNode> given, CSNode last) {
+        return call.call(given, last);
+    }
+
+    /*
+     * Value of an integer argument given to a function on longs
+     */
+    private static long toLong(String name, CSNode value) {
+        if (!value.fitsLong()) {
+            throw new CSE_Exception("Argument of " + name + " is too large : " + value.getName());
+        }
+        return value.getIntValue();
+    }
+}
@@ -0,0 +1,90 @@
+package com.rpal.cse;
+
+/*
+ * Operation codes of the CSE machine.
+ * Control structure nodes get theirs when the control structures are generated, so the machine
+ * dispatches on an enum instead of comparing type and name strings at every step.
+ * Values on the stack carry one as well, which selects the rule applied by gamma.
+ */
+public enum Opcode {
+    // Rule 1: constants stacked as they are
+    INTEGER("INTEGER"), STRING("STRING"), TRUTHVALUE("TRUTHVALUE"), NIL("NIL"), DUMMY("DUMMY"), Y("Y"),
+    // Rule 1: bound variables and built-in functions
+    IDENTIFIER("IDENTIFIER"),
+    // Rule 2: lambda closures
+    LAMBDA("lambdaClosure"),
+    // Rules 3, 4, 10, 11, 12 and 13: function application
+    GAMMA("gamma"),
+    // Rule 5: environment exit
+    ENV("env"),
+    // Rule 6: binary operators
+    ADD("OPERATOR"), SUBTRACT("OPERATOR"), MULTIPLY("OPERATOR"), DIVIDE("OPERATOR"), POWER("OPERATOR"),
+    EQ("OPERATOR"), NE("OPERATOR"), LS("OPERATOR"), GR("OPERATOR"), LE("OPERATOR"), GE("OPERATOR"),
+    OR("OPERATOR"), AND("OPERATOR"), AUG("OPERATOR"),
+    // Rule 7: unary operators
+    NOT("not"), NEG("neg"),
+    // Rule 8: conditional
+    BETA("beta"),
+    // Rule 9: tuple formation
+    TAU("tau"),
+    // Values that only appear on the stack or inside the machine
+    TUPLE("tuple"), ETA("eta"),
+    // Anything else
+    UNKNOWN("OPERATOR");
+
+    private final String type;          // Type name of the nodes with this code, as printed and compared by built-ins
+
+    Opcode(String type) {
+        this.type = type;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /*
+     * Maps the type and name of a node to its operation code.
+     */
+    public static Opcode of(String type, String name) {
+        switch (type) {
+            case "INTEGER":         return INTEGER;
+            case "STRING":          return STRING;
+            case "TRUTHVALUE":      return TRUTHVALUE;
+            case "NIL":             return NIL;
+            case "DUMMY":           return DUMMY;
+            case "Y":               return Y;
+            case "IDENTIFIER":      return IDENTIFIER;
+            case "lambdaClosure":   return LAMBDA;
+            case "gamma":           return GAMMA;
+            case "env":             return ENV;
+            case "OPERATOR":        return ofOperator(name);
+            case "not":             return NOT;
+            case "neg":             return NEG;
+            case "beta":            return BETA;
+            case "tau":             return TAU;
+            case "tuple":           return TUPLE;
+            case "eta":             return ETA;
+            default:                return UNKNOWN;
+        }
+    }
+
+    private static Opcode ofOperator(String name) {
+        switch (name) {
+            case "+":               return ADD;
+            case "-":               return SUBTRACT;
+            case "*":               return MULTIPLY;
+            case "/":               return DIVIDE;
+            case "**":              return POWER;
+            case "eq":              return EQ;
+            case "ne":              return NE;
+            case "ls": case "<":    return LS;
+            case "gr": case ">":    return GR;
+            case "le": case "<=":   return LE;
+            case "ge": case ">=":   return GE;
+            case "or":              return OR;
+            case "&":               return AND;
+            case "aug":             return AUG;
+            default:                return UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.rpal.cse;
+
+import java.util.List;
+
+/*
+ * Resolution pass over the control structures produced from the standardized tree.
+ * Every identifier bound by an enclosing lambda is given its lexical address: the number of
+ * environments to walk up from the current one (depth) and its position among that
+ * environment's variables (slot). The CSE machine can then fetch it without comparing names.
+ * Names are matched by the symbol ids the lexical analyzer gave them, not by their text.
+ */
+public class Resolver {
+
+    /*
+     * Chain of lambda variable lists in scope while a delta runs, innermost first.
+     */
+    private static class Scope {
+        private final int[] variables;          // Symbol ids of the variables bound by the lambda that opened this scope
+        private final Scope parent;             // Enclosing scope (null for the top level)
+
+        Scope(int[] variables, Scope parent) {
+            this.variables = variables;
+            this.parent = parent;
+        }
+    }
+
+    /*
+     * Replaces the identifiers of all deltas by copies annotated with their lexical addresses.
+     * Identifiers that are not bound by any lambda keep a depth of -1, and are given the function
+     * the registry has under their name (undefined names are left as they are).
+     */
+    public static List<List<CSNode>> resolve(List<List<CSNode>> deltaLists, Builtins builtins) {
+        // a delta is always generated after the delta that refers to it, so its scope is known before it is visited
+        Scope[] scopes = new Scope[deltaLists.size()];
+
+        for (int delta_no = 0; delta_no < deltaLists.size(); delta_no++) {
+            Scope scope = scopes[delta_no];
+
+            List<CSNode> delta = deltaLists.get(delta_no);
+            for (int i = 0; i < delta.size(); i++) {
+                CSNode node = delta.get(i);
+                switch (node.getOpcode()) {
+                    case LAMBDA:
+                        // the body of a lambda runs in a new environment below the one it was created in
+                        scopes[node.getLambdano()] = new Scope(((Lambda) node).getLambdasym(), scope);
+                        break;
+
+                    case BETA:
+                        // both branches of a conditional run in the environment of the conditional
+                        scopes[node.getThenno()] = scope;
+                        scopes[node.getElseno()] = scope;
+                        break;
+
+                    case IDENTIFIER:
+                        delta.set(i, resolveIdentifier((Identifier) node, scope, builtins));
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+        }
+        return deltaLists;
+    }
+
+    private static Identifier resolveIdentifier(Identifier node, Scope scope, Builtins builtins) {
+        int symbol = node.getSymbol();
+        int depth = 0;
+        while (symbol >= 0 && scope != null) {
+            for (int slot = 0; slot < scope.variables.length; slot++) {
+                if (scope.variables[slot] == symbol) {
+                    return node.withAddress(depth, slot);
+                }
+            }
+            scope = scope.parent;
+            depth++;
+        }
+        Builtin builtin = builtins.lookUp(node.getName());
+        return (builtin == null) ? node : node.withBuiltin(builtin);
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.rpal.cse;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/*
+ * Immutable text of a STRING value built at run time.
+ * A rope is either flat, a view of a range of a Java string, or the concatenation of two ropes.
+ * Concatenating only links the two parts, and taking the first character or the rest of a flat rope
+ * only narrows the view, so programs that build strings with Conc and walk them with Stem and Stern
+ * do not copy characters at every step. A concatenation is flattened the first time its characters
+ * are needed (printing, comparison, Stem and Stern), and keeps the flat text from then on.
+ */
+public final class Rope {
+    private static final int FLAT_LIMIT = 64;       // Concatenations shorter than this are copied into a flat rope
+
+    public static final Rope EMPTY = new Rope("", 0, 0);
+
+    private String base;                // Backing text of a flat rope (null while the rope is a concatenation)
+    private int offset;                 // Start of the rope within base
+    private final int length;           // Number of characters in the rope
+    private Rope left;                  // First part of a concatenation (null once flattened)
+    private Rope right;                 // Second part of a concatenation (null once flattened)
+
+    private Rope(String base, int offset, int length) {
+        this.base = base;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    private Rope(Rope left, Rope right) {
+        this.left = left;
+        this.right = right;
+        this.length = left.length + right.length;
+    }
+
+    /*
+     * Rope holding the whole of a string
+     */
+    public static Rope of(String text) {
+        return text.isEmpty() ? EMPTY : new Rope(text, 0, text.length());
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /*
+     * Rope of this text followed by the other one, in constant time
+     */
+    public Rope concat(Rope other) {
+        if (other.length == 0) {
+            return this;
+        }
+        if (this.length == 0) {
+            return other;
+        }
+        // short pieces are cheaper to copy than to link
+        if (this.length + other.length < FLAT_LIMIT && this.base != null && other.base != null) {
+            return Rope.of(this.toString().concat(other.toString()));
+        }
+        return new Rope(this, other);
+    }
+
+    /*
+     * Rope of the first character (Stem)
+     */
+    public Rope first() {
+        if (length == 0) {
+            throw new CSE_Exception("Stem of an empty string");
+        }
+        flatten();
+        return new Rope(base, offset, 1);
+    }
+
+    /*
+     * Rope of all characters but the first (Stern)
+     */
+    public Rope rest() {
+        if (length == 0) {
+            throw new CSE_Exception("Stern of an empty string");
+        }
+        flatten();
+        return (length == 1) ? EMPTY : new Rope(base, offset + 1, length - 1);
+    }
+
+    /*
+     * Tells whether two ropes hold the same characters, without copying either out of its backing string
+     */
+    public boolean contentEquals(Rope other) {
+        if (this == other) {
+            return true;
+        }
+        if (this.length != other.length) {
+            return false;
+        }
+        this.flatten();
+        other.flatten();
+        return this.base.regionMatches(this.offset, other.base, other.offset, length);
+    }
+
+    /*
+     * Compares two ropes lexicographically, like String.compareTo
+     */
+    public int compareTo(Rope other) {
+        this.flatten();
+        other.flatten();
+        int common = Math.min(this.length, other.length);
+        for (int i = 0; i < common; i++) {
+            char c1 = this.base.charAt(this.offset + i);
+            char c2 = other.base.charAt(other.offset + i);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return this.length - other.length;
+    }
+
+    /*
+     * Text of the rope. A view is copied out of its backing string once, and kept.
+     */
+    @Override
+    public String toString() {
+        flatten();
+        if (offset != 0 || length != base.length()) {
+            base = base.substring(offset, offset + length);
+            offset = 0;
+        }
+        return base;
+    }
+
+    /*
+     * Copies the characters of a concatenation into a single string.
+     * The parts are walked with an explicit stack, since ropes built in a loop are as deep as the loop is long.
+     */
+    private void flatten() {
+        if (base != null) {
+            return;
+        }
+        char[] chars = new char[length];
+        int pos = 0;
+        Deque<Rope> pending = new ArrayDeque<Rope>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            Rope part = pending.pop();
+            if (part.base != null) {
+                part.base.getChars(part.offset, part.offset + part.length, chars, pos);
+                pos += part.length;
+            } else {
+                pending.push(part.right);
+                pending.push(part.left);
+            }
+        }
+        base = new String(chars);
+        offset = 0;
+        left = right = null;
+    }
+}
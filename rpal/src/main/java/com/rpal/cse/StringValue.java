@@ -0,0 +1,37 @@
+package com.rpal.cse;
+
+/*
+ * STRING value. A literal keeps its text, a string built at run time keeps the rope it was built as,
+ * which is only flattened if it is printed or compared.
+ */
+public final class StringValue extends CSNode {
+    private final Rope rope;            // Characters of the string
+    private String text;                // Flat text, kept once produced
+
+    /*
+     * String literal. Its rope is made here, as the literal may be shared by machines on other threads.
+     */
+    public StringValue(String text) {
+        super(Opcode.STRING);
+        this.rope = Rope.of(text);
+        this.text = text;
+    }
+
+    public StringValue(Rope rope) {
+        super(Opcode.STRING);
+        this.rope = rope;
+    }
+
+    @Override
+    public String getName() {
+        if (text == null) {
+            text = rope.toString();
+        }
+        return text;
+    }
+
+    @Override
+    public Rope getRope() {
+        return rope;
+    }
+}
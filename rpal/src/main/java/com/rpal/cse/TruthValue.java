@@ -0,0 +1,29 @@
+package com.rpal.cse;
+
+/*
+ * TRUTHVALUE value. There are only the two instances, so truth values can be compared by identity.
+ */
+public final class TruthValue extends CSNode {
+    public static final TruthValue TRUE = new TruthValue(true);
+    public static final TruthValue FALSE = new TruthValue(false);
+
+    private final boolean value;
+
+    private TruthValue(boolean value) {
+        super(Opcode.TRUTHVALUE);
+        this.value = value;
+    }
+
+    public static TruthValue of(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    public boolean isTrue() {
+        return value;
+    }
+
+    @Override
+    public String getName() {
+        return value ? "true" : "false";
+    }
+}
@@ -0,0 +1,87 @@
+package com.rpal.cse;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/*
+ * Immutable list of the elements of a tuple value.
+ * A tuple is a view of the first 'size' slots of an array that can be shared with other tuples.
+ * Augmenting a tuple that ends where the filled part of its array ends writes the new element in place
+ * and returns a longer view, so the tuple itself is left unchanged and a chain of aug takes amortized
+ * constant time per element. Augmenting any other tuple (one already augmented before) copies its
+ * elements to a new array first, so tuples never see the elements added to one another.
+ */
+public final class Tuple extends AbstractList<CSNode> implements RandomAccess {
+    public static final Tuple EMPTY = new Tuple(new Store(new CSNode[0], 0), 0);
+
+    private final Store store;          // Array holding the elements, shared with the tuples augmented from this one
+    private final int size;             // Number of elements of the tuple, the first slots of the array
+
+    /*
+     * Array shared by the tuples built from one another with aug
+     */
+    private static final class Store {
+        private CSNode[] items;         // Elements, only the first 'used' slots are filled
+        private int used;               // Number of slots claimed by some tuple
+
+        private Store(CSNode[] items, int used) {
+            this.items = items;
+            this.used = used;
+        }
+    }
+
+    private Tuple(Store store, int size) {
+        this.store = store;
+        this.size = size;
+    }
+
+    /*
+     * Tuple of the given elements, which the caller must not modify afterwards
+     */
+    public static Tuple of(CSNode[] items) {
+        return (items.length == 0) ? EMPTY : new Tuple(new Store(items, items.length), items.length);
+    }
+
+    /*
+     * Tuple of the elements of a list (the list itself when it already is a tuple)
+     */
+    public static Tuple from(List<CSNode> list) {
+        if (list instanceof Tuple) {
+            return (Tuple) list;
+        }
+        return of(list.toArray(new CSNode[0]));
+    }
+
+    @Override
+    public CSNode get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return store.items[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /*
+     * Tuple of these elements followed by the given one (aug)
+     */
+    public Tuple append(CSNode element) {
+        Store target = store;
+        // the empty tuple is shared by everything, so it never hands out its array
+        if (size == 0 || size != target.used) {
+            CSNode[] items = new CSNode[Math.max(4, size * 2)];
+            System.arraycopy(store.items, 0, items, 0, size);
+            target = new Store(items, size);
+        } else if (target.used == target.items.length) {
+            CSNode[] items = new CSNode[target.used * 2];
+            System.arraycopy(target.items, 0, items, 0, target.used);
+            target.items = items;
+        }
+        target.items[target.used++] = element;
+        return new Tuple(target, size + 1);
+    }
+}
@@ -0,0 +1,39 @@
+package com.rpal.cse;
+
+import java.util.List;
+
+/*
+ * Tuple value, or nil, the empty tuple of the control structures
+ */
+public final class TupleValue extends CSNode {
+    public static final TupleValue NIL = new TupleValue(Opcode.NIL, Tuple.EMPTY);
+
+    private final List<CSNode> elements;    // Elements of the tuple, never modified
+
+    private TupleValue(Opcode opcode, List<CSNode> elements) {
+        super(opcode);
+        this.elements = elements;
+    }
+
+    /*
+     * Tuple of the given elements, which the caller must not modify afterwards
+     */
+    public TupleValue(List<CSNode> elements) {
+        this(Opcode.TUPLE, elements);
+    }
+
+    @Override
+    public String getName() {
+        return (this == NIL) ? "nil" : "tuple";
+    }
+
+    @Override
+    public boolean getIsTuple() {
+        return true;
+    }
+
+    @Override
+    public List<CSNode> getTuple() {
+        return elements;
+    }
+}
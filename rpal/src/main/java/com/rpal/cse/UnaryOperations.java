@@ -13,11 +13,11 @@ public class UnaryOperations {
      * Function for NOT operator 
      */
     public static CSNode logicNot(CSNode node){
-        if (node.getType().equals("TRUTHVALUE")) {
+        if (node.getOpcode() == Opcode.TRUTHVALUE) {
             if (node.getName().equals("true")) {
-                return new CSNode("TRUTHVALUE", "false");
+                return TruthValue.FALSE;
             } else {
-                return new CSNode("TRUTHVALUE","true");
+                return TruthValue.TRUE;
             }
         } else {
             throw new CSE_Exception("Not a TruthValue type");
@@ -28,10 +28,12 @@ public class UnaryOperations {
      * Function for negative operator
      */
     public static CSNode neg(CSNode node){
-        if (node.getType().equals("INTEGER")) {
-            int num = Integer.parseInt(node.getName());
-            node.setName(String.valueOf(-num));
-            return node;
+        if (node.getOpcode() == Opcode.INTEGER) {
+            // -Long.MIN_VALUE is the only negation that needs a BigInteger
+            if (node.fitsLong() && node.getIntValue() != Long.MIN_VALUE) {
+                return new IntegerValue(-node.getIntValue());
+            }
+            return new IntegerValue(node.getBigValue().negate());
         } else {
             throw new CSE_Exception("Not an INTEGER type");
         }
@@ -0,0 +1,68 @@
+package com.rpal.io;
+
+/*
+ * Output sink that encodes text straight into a byte buffer as UTF-8.
+ * Subclasses decide what happens to the buffer when it is full and when the sink is flushed.
+ */
+public abstract class BufferedSink implements OutputSink {
+    protected byte[] buffer;        // Encoded text not yet handed on
+    protected int count;            // Number of bytes used in buffer
+
+    protected BufferedSink(int capacity) {
+        buffer = new byte[Math.max(capacity, 16)];
+    }
+
+    /*
+     * Makes room for at least 'needed' more bytes in the buffer
+     */
+    protected abstract void makeRoom(int needed);
+
+    public void print(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (count == buffer.length) {
+                    makeRoom(1);
+                }
+                buffer[count++] = (byte) c;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                encode(Character.toCodePoint(c, text.charAt(++i)));
+            } else {
+                encode(c);
+            }
+        }
+    }
+
+    public void print(char c) {
+        if (c < 0x80) {
+            if (count == buffer.length) {
+                makeRoom(1);
+            }
+            buffer[count++] = (byte) c;
+        } else {
+            encode(c);
+        }
+    }
+
+    // Multi-byte UTF-8 encoding of a code point (unpaired surrogates are written as '?')
+    private void encode(int codePoint) {
+        if (buffer.length - count < 4) {
+            makeRoom(4);
+        }
+        if (codePoint < 0x800) {
+            buffer[count++] = (byte) (0xC0 | (codePoint >> 6));
+        } else if (codePoint < 0x10000) {
+            if (Character.isSurrogate((char) codePoint)) {
+                buffer[count++] = '?';
+                return;
+            }
+            buffer[count++] = (byte) (0xE0 | (codePoint >> 12));
+            buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        } else {
+            buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        }
+        buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+    }
+}
@@ -0,0 +1,91 @@
+package com.rpal.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Output sink that writes to a channel (a file, or a stream such as the standard output)
+ * whenever its buffer fills up, and when it is flushed.
+ */
+public class ChannelSink extends BufferedSink implements Closeable {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final WritableByteChannel channel;      // Destination of the encoded text
+    private final OutputStream stream;              // Stream under the channel, flushed with the sink (null if none)
+
+    public ChannelSink(WritableByteChannel channel) {
+        this(channel, null, DEFAULT_CAPACITY);
+    }
+
+    private ChannelSink(WritableByteChannel channel, OutputStream stream, int capacity) {
+        super(capacity);
+        this.channel = channel;
+        this.stream = stream;
+    }
+
+    /*
+     * Sink writing to an output stream
+     */
+    public static ChannelSink of(OutputStream stream) {
+        return new ChannelSink(Channels.newChannel(stream), stream, DEFAULT_CAPACITY);
+    }
+
+    /*
+     * Sink writing to the standard output (System.out as it is when the sink is created)
+     */
+    public static ChannelSink stdout() {
+        return of(System.out);
+    }
+
+    /*
+     * Sink writing to a file, which is created or truncated
+     */
+    public static ChannelSink toFile(Path path) throws IOException {
+        return new ChannelSink(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    @Override
+    protected void makeRoom(int needed) {
+        drain();
+    }
+
+    public void flush() {
+        drain();
+        if (stream != null) {
+            try {
+                stream.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /*
+     * Flushes the sink and closes its channel
+     */
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private void drain() {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, count);
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        count = 0;
+    }
+}
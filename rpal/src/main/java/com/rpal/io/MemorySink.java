@@ -0,0 +1,62 @@
+package com.rpal.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * Output sink that keeps everything printed in memory, for embedding the interpreter.
+ * A sink may be given a limit, past which printing throws OutputLimitException (what fits is kept).
+ */
+public class MemorySink extends BufferedSink {
+    private final int limit;        // Most bytes the sink holds
+
+    public MemorySink() {
+        this(Integer.MAX_VALUE - 8);
+    }
+
+    /*
+     * Sink holding at most limit bytes
+     */
+    public MemorySink(int limit) {
+        super(Math.min(256, limit));
+        this.limit = limit;
+    }
+
+    @Override
+    protected void makeRoom(int needed) {
+        if (needed > limit - count) {
+            throw new OutputLimitException();
+        }
+        buffer = Arrays.copyOf(buffer, (int) Math.min(limit, Math.max(buffer.length * 2L, count + needed)));
+    }
+
+    public void flush() {
+        // nothing to hand on, the text stays in the buffer
+    }
+
+    /*
+     * Number of bytes printed so far
+     */
+    public int size() {
+        return count;
+    }
+
+    /*
+     * The bytes printed so far, UTF-8 encoded
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    /*
+     * Forgets everything printed so far
+     */
+    public void reset() {
+        count = 0;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, count, StandardCharsets.UTF_8);
+    }
+}
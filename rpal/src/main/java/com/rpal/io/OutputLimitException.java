@@ -0,0 +1,12 @@
+package com.rpal.io;
+
+/*
+ * Thrown by a sink that was given more text than it may hold
+ */
+public class OutputLimitException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public OutputLimitException() {
+        super("Output limit exceeded");
+    }
+}
@@ -0,0 +1,20 @@
+package com.rpal.io;
+
+/*
+ * Destination of the text printed by an RPAL program.
+ * Sinks buffer what they are given; the text is only guaranteed to have reached its destination after flush().
+ */
+public interface OutputSink {
+    /*
+     * Prints the characters of text from start (inclusive) to end (exclusive)
+     */
+    void print(CharSequence text, int start, int end);
+
+    default void print(CharSequence text) {
+        print(text, 0, text.length());
+    }
+
+    void print(char c);
+
+    void flush();
+}
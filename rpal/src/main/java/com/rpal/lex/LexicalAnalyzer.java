@@ -1,265 +1,223 @@
 package com.rpal.lex;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.List;
 
 public class LexicalAnalyzer {
-    private ArrayList<Token> tokenList; // This list stores tokens created during lexical analysis for later parsing.
-    private BufferedReader reader;
-    // RPAL language's reserved keywords
-    private List<String> keywords = Arrays.asList("let", "in", "fn", "where", "aug", "or", "not", "gr", "ge", "ls",
-            "le", "eq", "ne",
-            "true", "false", "nil", "dummy", "within", "and", "rec", "stem", "stern", "conc");
-
-    // Regular expressions defining fundamental lexical components
-    private String letter = "[A-Za-z]";
-    private String digit = "[0-9]";
-    private String operator_symbol = "[+|\\-|*|<|>|&|.|@|/|:|=|~|\\||$|!|#|%|`|_|\\[|\\]|{|}|\\\"|?|^|'|]";
+    // RPAL language's reserved keywords, interned first so that their symbol ids index this array
+    private static final TokenKind[] keywords = { TokenKind.LET, TokenKind.IN, TokenKind.FN, TokenKind.WHERE,
+            TokenKind.AUG, TokenKind.OR, TokenKind.NOT, TokenKind.GR, TokenKind.GE, TokenKind.LS, TokenKind.LE,
+            TokenKind.EQ, TokenKind.NE, TokenKind.TRUE, TokenKind.FALSE, TokenKind.NIL, TokenKind.DUMMY,
+            TokenKind.WITHIN, TokenKind.AND, TokenKind.REC, TokenKind.STEM, TokenKind.STERN, TokenKind.CONC };
+
+    // Character classes of the scanner's state table
+    private static final byte OTHER = 0;         // Characters outside the RPAL alphabet, skipped
+    private static final byte LETTER = 1;        // [A-Za-z]
+    private static final byte DIGIT = 2;         // [0-9]
+    private static final byte UNDERSCORE = 3;    // '_' continues identifiers and is also an operator symbol
+    private static final byte OPERATOR = 4;      // Operator symbols
+    private static final byte QUOTE = 5;         // Start of a string literal
+    private static final byte SPACE = 6;         // Blanks, tabs and line breaks
+    private static final byte L_PAREN = 7;
+    private static final byte R_PAREN = 8;
+    private static final byte SEMICOLON = 9;
+    private static final byte COMMA = 10;
+
+    private static final byte[] charClass = new byte[128];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) {
+            charClass[c] = LETTER;
+            charClass[c + ('a' - 'A')] = LETTER;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            charClass[c] = DIGIT;
+        }
+        for (char c : "+-*<>&.@/:=~|$!#%`[]{}\"?^".toCharArray()) {
+            charClass[c] = OPERATOR;
+        }
+        charClass['_'] = UNDERSCORE;
+        charClass['\''] = QUOTE;
+        for (char c : " \t\n\u000B\f\r".toCharArray()) {
+            charClass[c] = SPACE;
+        }
+        charClass['('] = L_PAREN;
+        charClass[')'] = R_PAREN;
+        charClass[';'] = SEMICOLON;
+        charClass[','] = COMMA;
+    }
 
-    private boolean readerClosed = false; // Ensures the reader doesn’t continue once the file ends
+    private final char[] source;    // The whole input
+    private final int length;       // Number of characters of input in source
+    private int pos;                // Offset of the next character to scan
+    private final SymbolTable symbols = new SymbolTable(); // Names of the identifiers (and keywords) scanned
+    private ArrayList<Token> tokenList; // Tokens collected by getTokenList, built on first request
 
     public LexicalAnalyzer(File file) throws IOException {
-        this.tokenList = new ArrayList<Token>();
-        this.reader = new BufferedReader(new FileReader(file));
-
-        String nextChr = null; // Holds the character just read
-        String buffer = null; // Temporarily keeps characters that were read too early
-
-        while ((nextChr = nextChr()) != null) { // Continues until the end of the file
-            constructToken(nextChr, buffer);
-            if (readerClosed) {
-                break;
+        try (Reader reader = new FileReader(file)) {
+            char[] buffer = new char[(int) Math.min(Math.max(file.length(), 16), Integer.MAX_VALUE - 8)];
+            int count = 0;
+            int read;
+            while ((read = reader.read(buffer, count, buffer.length - count)) != -1) {
+                count += read;
+                if (count == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
             }
+            this.source = buffer;
+            this.length = count;
         }
+        internKeywords();
+    }
 
-        // Append a special EOF token to mark the end
-        Token EofToken = new Token();
-        EofToken.setType("EOF");
-        EofToken.setValue("EOF");
-        tokenList.add(EofToken);
+    public LexicalAnalyzer(String source) {
+        this.source = source.toCharArray();
+        this.length = this.source.length;
+        internKeywords();
+    }
+
+    private void internKeywords() {
+        for (TokenKind keyword : keywords) {
+            symbols.intern(keyword.getText());
+        }
+    }
 
-        // Post-process the tokens to remove unwanted ones and modify specific types
-        screening();
+    /**
+     * Returns the table holding the names of the identifiers scanned so far
+     *
+     * @return SymbolTable
+     */
+    public SymbolTable getSymbolTable() {
+        return symbols;
     }
 
     /**
-     * Returns the full list of tokens generated from input
-     * 
+     * Returns the full list of tokens generated from input, ending with the EOF token
+     *
      * @return ArrayList<Token>
      */
     public ArrayList<Token> getTokenList() {
+        if (tokenList == null) {
+            tokenList = new ArrayList<Token>();
+            Token token;
+            do {
+                token = nextToken();
+                tokenList.add(token);
+            } while (token.getKind() != TokenKind.EOF);
+        }
         return tokenList;
     }
 
     /**
-     * Interprets characters and creates a new token accordingly
-     * 
-     * @param nextChr the current character to examine
-     * @param buffer  holds any character that was read but not yet processed
-          * @throws IOException 
-          */
-         private void constructToken(String nextChr, String buffer) throws IOException {
-        Token token = new Token();
-        String value = "";
-
-        if (nextChr.matches(letter)) { // Starts an identifier if the first character is a letter
-            value = nextChr;
-            while ((nextChr = nextChr()) != null) {
-                // Keeps building the identifier using letters, digits, or underscore
-                if (nextChr.matches("[" + letter + "|" + digit + "|'_']*")) {
-                    value += nextChr;
-                } else {
-                    // Save this character for the next token
-                    buffer = nextChr;
-                    break;
-                }
-            }
-
-            token.setType("IDENTIFIER");
-            token.setValue(value);
-            tokenList.add(token);
+     * Scans and returns the next token of the input, skipping whitespace and comments.
+     * Once the input is exhausted every call returns an EOF token.
+     *
+     * @return Token
+     */
+    public Token nextToken() {
+        while (pos < length) {
+            int start = pos;
+            char c = source[pos];
+
+            switch (classOf(c)) {
+                case LETTER: // Starts an identifier, or a keyword
+                    pos++;
+                    while (pos < length && isIdentifierPart(source[pos])) {
+                        pos++;
+                    }
+                    int symbol = symbols.intern(source, start, pos - start);
+                    if (symbol < keywords.length) {
+                        return new Token(keywords[symbol], keywords[symbol].getText(), -1, start, pos);
+                    }
+                    return new Token(TokenKind.IDENTIFIER, symbols.nameOf(symbol), symbol, start, pos);
 
-        } else if (nextChr.matches(digit)) { // Detects and constructs an integer token
-            value = nextChr;
-            while ((nextChr = nextChr()) != null) {
-                // Gathers all following digits
-                if (nextChr.matches("[" + digit + "]*")) {
-                    value += nextChr;
-                } else {
-                    buffer = nextChr;
-                    break;
-                }
-            }
-            token.setType("INTEGER");
-            token.setValue(value);
-            tokenList.add(token);
+                case DIGIT: // Integer literal
+                    pos++;
+                    while (pos < length && classOf(source[pos]) == DIGIT) {
+                        pos++;
+                    }
+                    return new Token(TokenKind.INTEGER, new String(source, start, pos - start), -1, start, pos);
 
-        } else if (nextChr.matches("[\']")) { // Handles the start of a string literal
-            value = nextChr;
-            String prevChr = nextChr;
-            while ((nextChr = nextChr()) != null) {
-                // Ends the string when it hits an unescaped closing quote
-                if (!(prevChr.equals("\\")) && nextChr.matches("[\']")) {
-                    value += nextChr;
-                    token.setType("STRING");
-                    token.setValue(value);
-                    tokenList.add(token);
-                    break;
-                } else if (nextChr.matches("[\\t|\\n|\\\\|\\\'|'('|')'|';'|','|' '|" + letter + "|" + digit + "|"
-                        + operator_symbol + "]*")) { // Accepts various characters inside a string
-                    prevChr = nextChr;
-                    value += nextChr;
-                } else if (prevChr.equals("\\") && nextChr.matches("[\']")) { // Deals with escaped single quote
-                    prevChr = nextChr;
-                    value += nextChr;
-                } else {
-                    buffer = nextChr;
-                    break;
-                }
-            }
+                case QUOTE: // String literal, a backslash escapes the character after it
+                    pos++;
+                    while (pos < length && source[pos] != '\'') {
+                        pos += (source[pos] == '\\' && pos + 1 < length) ? 2 : 1;
+                    }
+                    if (pos >= length) {
+                        break; // unterminated string, dropped
+                    }
+                    pos++;
+                    return new Token(TokenKind.STRING, new String(source, start, pos - start), -1, start, pos);
 
-        } else if (nextChr.matches(operator_symbol)) { // Recognizes operators or comments
-            value = nextChr;
-            String prevChr = nextChr;
-            boolean isComment = false;
-            while ((nextChr = nextChr()) != null) {
-                // Begins a comment if two slashes are found
-                if (prevChr.matches("[/]") && nextChr.matches("[/]")) {
-                    // Separate the part before comment as a standalone operator
-                    if (value.length() > 1) {
-                        String tokenValue = value.substring(0, value.length() - 1);
-                        token.setType("OPERATOR");
-                        token.setValue(tokenValue);
-                        tokenList.add(token);
+                case UNDERSCORE:
+                case OPERATOR: // Operator, or a comment if two slashes are found
+                    while (pos < length && isOperatorSymbol(source[pos]) && !startsComment(pos)) {
+                        pos++;
                     }
-                    token = new Token();
-                    isComment = true;
-                    value = "//";
-                    while ((nextChr = nextChr()) != null) {
-                        // Collects all characters in the comment
-                        if (nextChr.matches("['\''|'('|')'|';'|','|' '|'\\t'|" + letter + "|" + digit + "|"
-                                + operator_symbol + "]*")) {
-                            value += nextChr;
-                        } else if (nextChr.matches("[\\n]")) { // Stops at newline
-                            value += nextChr;
-                            token.setType("DELETE");
-                            token.setValue(value);
-                            tokenList.add(token);
-                            break;
-                        }
+                    if (pos > start) {
+                        TokenKind kind = TokenKind.ofOperator(source, start, pos - start);
+                        String value = (kind.getText() != null) ? kind.getText() : new String(source, start, pos - start);
+                        return new Token(kind, value, -1, start, pos);
                     }
-                } else if (nextChr.matches("[" + operator_symbol + "]*")) { // Builds a multi-symbol operator
-                    value += nextChr;
-                    prevChr = nextChr;
-                } else {
-                    buffer = nextChr;
-                    token.setType("OPERATOR");
-                    token.setValue(value);
-                    tokenList.add(token);
+                    // a comment runs up to the end of the line
+                    while (pos < length && source[pos] != '\n') {
+                        pos++;
+                    }
+                    pos++;
                     break;
-                }
-                if (isComment) {
-                    break; // Stop reading after a comment is captured
-                }
-            }
 
-        } else if (nextChr.matches("[\\s|\\t|\\n]")) { // Handles whitespace tokens
-            value = nextChr;
-            while ((nextChr = nextChr()) != null) {
-                // Collects all spaces, tabs, and line breaks
-                if (nextChr.matches("[\\s\\t\\n]*")) {
-                    value += nextChr;
-                } else {
-                    buffer = nextChr;
+                case SPACE:
+                    pos++;
+                    while (pos < length && classOf(source[pos]) == SPACE) {
+                        pos++;
+                    }
                     break;
-                }
-            }
-            token.setType("DELETE");
-            token.setValue(value);
-            tokenList.add(token);
 
-        } else if (nextChr.matches("[(]")) { // Opening parenthesis detected
-            value = nextChr;
-            token.setType("L_PAREN");
-            token.setValue(value);
-            tokenList.add(token);
+                case L_PAREN:
+                    pos++;
+                    return new Token(TokenKind.L_PAREN, "(", -1, start, pos);
 
-        } else if (nextChr.matches("[)]")) { // Closing parenthesis found
-            value = nextChr;
-            token.setType("R_PAREN");
-            token.setValue(value);
-            tokenList.add(token);
+                case R_PAREN:
+                    pos++;
+                    return new Token(TokenKind.R_PAREN, ")", -1, start, pos);
 
-        } else if (nextChr.matches("[;]")) { // Semicolon punctuation
-            value = nextChr;
-            token.setType("SEMICOLON");
-            token.setValue(value);
-            tokenList.add(token);
+                case SEMICOLON:
+                    pos++;
+                    return new Token(TokenKind.SEMICOLON, ";", -1, start, pos);
 
-        } else if (nextChr.matches("[,]")) { // Comma punctuation
-            value = nextChr;
-            token.setType("COMMA");
-            token.setValue(value);
-            tokenList.add(token);
+                case COMMA:
+                    pos++;
+                    return new Token(TokenKind.COMMA, ",", -1, start, pos);
 
+                default: // Characters outside the alphabet are skipped
+                    pos++;
+                    break;
+            }
         }
-
-        // If we saved a character earlier, use it now to avoid missing any input
-        if (buffer != null) {
-            nextChr = buffer;
-            buffer = null;
-            constructToken(nextChr, buffer);
-        }
+        pos = length;
+        return new Token(TokenKind.EOF, "EOF", -1, length, length);
     }
 
-    /**
-     * Reads one character from the input file and converts it to a string
-     * 
-     * @return the next character or null if at end of file
-          * @throws IOException 
-          */
-         private String nextChr() throws IOException {
-        String nextChr = null;
-        if (readerClosed) {
-            return null; // Do not read if the file stream is already shut
-        }
-        int chr = reader.read(); // Fetch the next byte from the input
-        if (chr != -1) { // If not EOF
-            nextChr = Character.toString((char) chr);
-        } else {
-            readerClosed = true; // Prevent further reads if finished
-            reader.close(); // Close the file stream
-        }
-        return nextChr;
+    private static byte classOf(char c) {
+        return (c < 128) ? charClass[c] : OTHER;
     }
 
-    /**
-     * Cleans and adjusts the token list after initial scanning.
-     * - Removes all tokens marked DELETE (e.g., whitespace and comments).
-     * - Converts identifiers to keywords when applicable.
-     */
-    private void screening() {
-        // Iterator used to safely modify list while looping
-        for (Iterator<Token> it = tokenList.iterator(); it.hasNext();) {
-            Token tok = it.next();
+    private static boolean isIdentifierPart(char c) {
+        byte cls = classOf(c);
+        return cls == LETTER || cls == DIGIT || cls == UNDERSCORE;
+    }
 
-            // Remove all tokens classified as DELETE
-            if ("DELETE".equals(tok.getType())) {
-                it.remove();
-            }
+    private static boolean isOperatorSymbol(char c) {
+        byte cls = classOf(c);
+        return cls == OPERATOR || cls == UNDERSCORE;
+    }
 
-            // If a token is an identifier and matches a reserved word, update its type
-            if ("IDENTIFIER".equals(tok.getType())
-                    && keywords.contains(tok.getValue())) {
-                tok.setType("KEYWORD");
-            }
-        }
+    private boolean startsComment(int at) {
+        return source[at] == '/' && at + 1 < length && source[at + 1] == '/';
     }
 
 }
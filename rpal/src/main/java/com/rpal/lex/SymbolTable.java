@@ -0,0 +1,110 @@
+package com.rpal.lex;
+
+import java.util.Arrays;
+
+/*
+ * Interns the names scanned from a program and hands out a small int id for each distinct name.
+ * The same name always gets the same id and the same String, so later phases can compare ids,
+ * and a name repeated throughout the source is only allocated once.
+ */
+public class SymbolTable {
+    private static final int INITIAL_CAPACITY = 64;   // Table size on creation (always a power of two)
+
+    private int[] table;        // Open-addressing table of id + 1, 0 marking an unused slot
+    private String[] names;     // Names by id
+    private int[] hashes;       // Hash of each name by id, to avoid comparing characters on a mismatch
+    private int size;           // Number of names interned
+
+    public SymbolTable() {
+        table = new int[INITIAL_CAPACITY];
+        names = new String[INITIAL_CAPACITY / 2];
+        hashes = new int[INITIAL_CAPACITY / 2];
+    }
+
+    /*
+     * Returns the id of a name, adding the name if it has not been seen.
+     */
+    public int intern(String name) {
+        char[] chars = name.toCharArray();
+        return intern(chars, 0, chars.length);
+    }
+
+    /*
+     * Returns the id of the name found in a range of characters, adding the name if it has not been seen.
+     * No String is created when the name is already known.
+     */
+    public int intern(char[] source, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + source[i];
+        }
+        int mask = table.length - 1;
+        int slot = spread(hash) & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && matches(names[id], source, start, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = size++;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+        }
+        names[id] = new String(source, start, length);
+        hashes[id] = hash;
+        table[slot] = id + 1;
+        if (2 * size > table.length) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    /*
+     * Returns the name with the given id.
+     */
+    public String nameOf(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Unknown symbol : " + id);
+        }
+        return names[id];
+    }
+
+    /*
+     * Returns the number of names interned.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = spread(hashes[id]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    private static boolean matches(String name, char[] source, int start, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != source[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,16 +1,39 @@
 package com.rpal.lex;
 
 public class Token {
-    // Token is simply a pair of type and value(eg: <IDENTIFIER: Dog>)
-    private String type; // eg: IDENTIFIER
+    // Token is simply a pair of kind and value(eg: <IDENTIFIER: Dog>)
+    private TokenKind kind; // eg: IDENTIFIER
     private String value; // eg: Dog
+    private int symbol; // id of an identifier's name in the symbol table, -1 for other tokens
+    private int start; // offset of the first character of the token in the source
+    private int end; // offset just past the last character of the token
+
+    public Token() {
+        this.symbol = -1;
+    }
+
+    public Token(TokenKind kind, String value, int symbol, int start, int end) {
+        this.kind = kind;
+        this.value = value;
+        this.symbol = symbol;
+        this.start = start;
+        this.end = end;
+    }
     
     
     /** 
-     * @return String
+     * @return TokenKind
+     */
+    public TokenKind getKind() {
+        return kind;
+    }
+    
+    
+    /** 
+     * @return String the category of the token (eg: KEYWORD)
      */
     public String getType() {
-        return type;
+        return kind.getCategory();
     }
     
     
@@ -23,10 +46,34 @@ public class Token {
     
 
     /** 
-     * @param type
+     * @return int
      */
-    public void setType(String type) {
-        this.type = type;
+    public int getSymbol() {
+        return symbol;
+    }
+    
+
+    /** 
+     * @return int
+     */
+    public int getStart() {
+        return start;
+    }
+    
+    
+    /** 
+     * @return int
+     */
+    public int getEnd() {
+        return end;
+    }
+    
+
+    /** 
+     * @param kind
+     */
+    public void setKind(TokenKind kind) {
+        this.kind = kind;
     }
 
     
@@ -37,6 +84,14 @@ public class Token {
         this.value = value;
     }
     
+
+    /** 
+     * @param symbol
+     */
+    public void setSymbol(int symbol) {
+        this.symbol = symbol;
+    }
+    
     
     /** 
      * for debugging purposes
@@ -44,7 +99,7 @@ public class Token {
      */
     @Override
     public String toString() {
-        return "<" + type + ": " + value + ">";
+        return "<" + getType() + ": " + value + ">";
     }
     
 }
@@ -0,0 +1,118 @@
+package com.rpal.lex;
+
+/*
+ * Kinds of tokens produced by the lexical analyzer.
+ * Keywords, operators and punctuation are classified once when they are scanned,
+ * so the parser compares enum constants instead of token strings.
+ */
+public enum TokenKind {
+    IDENTIFIER("IDENTIFIER", null),
+    INTEGER("INTEGER", null),
+    STRING("STRING", null),
+
+    // Keywords
+    LET("KEYWORD", "let"),
+    IN("KEYWORD", "in"),
+    FN("KEYWORD", "fn"),
+    WHERE("KEYWORD", "where"),
+    AUG("KEYWORD", "aug"),
+    OR("KEYWORD", "or"),
+    NOT("KEYWORD", "not"),
+    GR("KEYWORD", "gr"),
+    GE("KEYWORD", "ge"),
+    LS("KEYWORD", "ls"),
+    LE("KEYWORD", "le"),
+    EQ("KEYWORD", "eq"),
+    NE("KEYWORD", "ne"),
+    TRUE("KEYWORD", "true"),
+    FALSE("KEYWORD", "false"),
+    NIL("KEYWORD", "nil"),
+    DUMMY("KEYWORD", "dummy"),
+    WITHIN("KEYWORD", "within"),
+    AND("KEYWORD", "and"),
+    REC("KEYWORD", "rec"),
+    STEM("KEYWORD", "stem"),
+    STERN("KEYWORD", "stern"),
+    CONC("KEYWORD", "conc"),
+
+    // Operators known to the grammar
+    PLUS("OPERATOR", "+"),
+    MINUS("OPERATOR", "-"),
+    TIMES("OPERATOR", "*"),
+    DIVIDE("OPERATOR", "/"),
+    POWER("OPERATOR", "**"),
+    AMPERSAND("OPERATOR", "&"),
+    AT("OPERATOR", "@"),
+    DOT("OPERATOR", "."),
+    EQUALS("OPERATOR", "="),
+    ARROW("OPERATOR", "->"),
+    BAR("OPERATOR", "|"),
+    GREATER("OPERATOR", ">"),
+    GREATER_EQUAL("OPERATOR", ">="),
+    LESS("OPERATOR", "<"),
+    LESS_EQUAL("OPERATOR", "<="),
+    // Any other run of operator symbols
+    OPERATOR("OPERATOR", null),
+
+    // Punctuation
+    L_PAREN("L_PAREN", "("),
+    R_PAREN("R_PAREN", ")"),
+    SEMICOLON("SEMICOLON", ";"),
+    COMMA("COMMA", ","),
+
+    EOF("EOF", "EOF");
+
+    private final String category;  // Token type as printed (eg: KEYWORD)
+    private final String text;      // Fixed text of the token, null if it varies
+
+    TokenKind(String category, String text) {
+        this.category = category;
+        this.text = text;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /*
+     * Text used for this kind in error messages.
+     */
+    public String describe() {
+        return (text != null) ? text : category;
+    }
+
+    /*
+     * Kind of an operator token, from its characters in the source.
+     */
+    static TokenKind ofOperator(char[] source, int start, int length) {
+        char c = source[start];
+        if (length == 1) {
+            switch (c) {
+                case '+': return PLUS;
+                case '-': return MINUS;
+                case '*': return TIMES;
+                case '/': return DIVIDE;
+                case '&': return AMPERSAND;
+                case '@': return AT;
+                case '.': return DOT;
+                case '=': return EQUALS;
+                case '|': return BAR;
+                case '>': return GREATER;
+                case '<': return LESS;
+                default:  return OPERATOR;
+            }
+        }
+        if (length == 2) {
+            char d = source[start + 1];
+            if (c == '*' && d == '*') return POWER;
+            if (c == '-' && d == '>') return ARROW;
+            if (c == '>' && d == '=') return GREATER_EQUAL;
+            if (c == '<' && d == '=') return LESS_EQUAL;
+        }
+        return OPERATOR;
+    }
+}
@@ -1,11 +1,17 @@
 package com.rpal.parser;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 
+import com.rpal.cse.Builtins;
 import com.rpal.cse.CSNode;
+import com.rpal.cse.Identifier;
+import com.rpal.cse.Instruction;
+import com.rpal.cse.Lambda;
+import com.rpal.cse.Resolver;
 
 public class AST {
 	// Tree details
@@ -30,6 +36,26 @@ public class AST {
 		root.printTree();
 	}
 
+	public int countNodes() {
+		/*
+		 * Counts the nodes of the tree, walking it with an explicit stack as trees can be very deep
+		 */
+		int count = 0;
+		ArrayDeque<ASTNode> pending = new ArrayDeque<ASTNode>();
+		pending.push(root);
+		while (!pending.isEmpty()) {
+			ASTNode node = pending.pop();
+			count++;
+			if (node.getRight() != null) {
+				pending.push(node.getRight());
+			}
+			if (node.getLeft() != null) {
+				pending.push(node.getLeft());
+			}
+		}
+		return count;
+	}
+
 	public boolean isStandardized(ASTNode rooNode) {
 		return this.standardized;
 	}
@@ -104,7 +130,7 @@ public class AST {
 				gamNode = new ASTNode("gamma");
 				gamNode.setLeft(yNode);
 				// top x is a copy of x node without linking to e
-				LeafNode topX = new LeafNode(xNode.getType(), ((LeafNode) xNode).getValue());
+				LeafNode topX = new LeafNode(xNode.getType(), ((LeafNode) xNode).getValue(), ((LeafNode) xNode).getSymbol());
 				topX.setLeft(xNode.getLeft());
 				topX.setRight(gamNode);
 				node.setLeft(topX);
@@ -186,6 +212,13 @@ public class AST {
 	}
 
 	public List<List<CSNode>> getCS() {
+		return getCS(Builtins.standard());
+	}
+
+	/*
+	 * Control structures of the standardized tree, with the names of built-in functions resolved in the given registry
+	 */
+	public List<List<CSNode>> getCS(Builtins builtins) {
 		/*
 		 * Generates and returns the assiciated control structures list
 		 */
@@ -205,7 +238,8 @@ public class AST {
 			deltaList.add(currentdelta);
 			currentDeltaID++;
 		}
-		return deltaList;
+		// give every bound identifier its lexical address
+		return Resolver.resolve(deltaList, builtins);
 	}
 
 	public void preorder(ASTNode root, ArrayList<CSNode> currentdelta) {
@@ -216,25 +250,31 @@ public class AST {
 		if (root.getType().equals("lambda")) {
 			if (!root.getLeft().getType().equals("comma")) {
 				ArrayList<String> name = new ArrayList<String>();
+				int[] symbols = new int[0];
 				if (root.getLeft().getType().equals("IDENTIFIER")) {
 					String varname = ((LeafNode) root.getLeft()).getValue();
 					name.add(varname);
+					symbols = new int[] { ((LeafNode) root.getLeft()).getSymbol() };
 				}
-				CSNode lambdaclosure = new CSNode("lambdaClosure", name, ++deltaListLength);
+				CSNode lambdaclosure = new Lambda(name, symbols, ++deltaListLength, false);
 				currentdelta.add(lambdaclosure);
 			} else {
 				ASTNode commachild = root.getLeft().getLeft();
 				ArrayList<String> tuple = new ArrayList<String>();
+				ArrayList<Integer> symbols = new ArrayList<Integer>();
 				while (commachild != null) {
 					String name = "";
+					int symbol = -1;
 					if (commachild.getType().equals("IDENTIFIER")) {
 						name = ((LeafNode) commachild).getValue();
+						symbol = ((LeafNode) commachild).getSymbol();
 					}
 					tuple.add(name);
+					symbols.add(symbol);
 					commachild = commachild.getRight();
 				}
-				CSNode lambdaclosure = new CSNode("lambdaClosure", tuple, ++deltaListLength);
-				lambdaclosure.setIsTuple(true);
+				CSNode lambdaclosure = new Lambda(tuple, symbols.stream().mapToInt(Integer::intValue).toArray(),
+						++deltaListLength, true);
 				currentdelta.add(lambdaclosure);
 			}
 			pendingdelta.add(root.getLeft().getRight());
@@ -244,14 +284,13 @@ public class AST {
 
 		// Conditional structure
 		else if (root.getType().equals("->")) {
-			CSNode betaObject = new CSNode("beta", deltaListLength + 1, deltaListLength + 2);
+			CSNode betaObject = Instruction.beta(deltaListLength + 1, deltaListLength + 2);
 			currentdelta.add(betaObject);
 			pendingdelta.add(root.getLeft().getRight());
 			pendingdelta.add(root.getLeft().getRight().getRight());
 
 			root.getLeft().getRight().setRight(null);
 			root.getLeft().setRight(null);
-			root.setRight(null);
 			deltaListLength += 2;
 			if (root.getLeft() != null) {
 				preorder(root.getLeft(), currentdelta);
@@ -263,16 +302,13 @@ public class AST {
 
 		// Tau structure
 		else if (root.getType().equals("tau")) {
-			String name = "tau";
-			String type = "tau";
 			int n = 0;
 			ASTNode temp = root.getLeft();
 			while (temp != null) {
 				++n;
 				temp = temp.getRight();
 			}
-			CSNode t = new CSNode(type, name);
-			t.setTauno(n);
+			CSNode t = Instruction.tau(n);
 			currentdelta.add(t);
 			if (root.getLeft() != null)
 				preorder(root.getLeft(), currentdelta);
@@ -284,9 +320,11 @@ public class AST {
 			// leaf nodes
 			String type = "";
 			String name = "";
+			int symbol = -1;
 			if (root.getType().equals("IDENTIFIER")) {
 				type = "IDENTIFIER";
 				name = ((LeafNode) root).getValue();
+				symbol = ((LeafNode) root).getSymbol();
 
 			} else if (root.getType().equals("STRING")) {
 				type = "STRING";
@@ -334,12 +372,8 @@ public class AST {
 				name = root.getType();
 			}
 
-			CSNode t = new CSNode(type, name);
-
-			// Mark NIL as a Tuple Type
-			if (t.getType().equals("NIL")) {
-				t.setIsTuple(true);
-			}
+			// the operation code the CSE machine dispatches on is fixed by the node's class
+			CSNode t = type.equals("IDENTIFIER") ? new Identifier(name, symbol) : CSNode.of(type, name);
 
 			currentdelta.add(t);
 
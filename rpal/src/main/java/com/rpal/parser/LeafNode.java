@@ -5,10 +5,16 @@ package com.rpal.parser;
  */
 public class LeafNode extends ASTNode{
     private String value;
+    private int symbol; // symbol id of an identifier's name, -1 for other leaves
 
     public LeafNode(String type,String value){
+        this(type, value, -1);
+    }
+
+    public LeafNode(String type,String value,int symbol){
         super(type);
         this.value = value;
+        this.symbol = symbol;
     }
 
     public String getValue(){
@@ -17,6 +23,9 @@ public class LeafNode extends ASTNode{
     public void setValue(String val){
         this.value = val;
     }
+    public int getSymbol(){
+        return this.symbol;
+    }
     
     
 }
@@ -1,69 +1,110 @@
 package com.rpal.parser;
 
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Stack;
+import java.util.StringJoiner;
 
 import com.rpal.lex.Token;
+import com.rpal.lex.TokenKind;
+import com.rpal.util.ArrayStack;
+
+import static com.rpal.lex.TokenKind.*;
 
 public class Parser {
+    // Tokens that can start an expression (E, Ew, T, Ta, Tc, B, Bt)
+    private static final EnumSet<TokenKind> EXPRESSION_START =
+            EnumSet.of(IDENTIFIER, INTEGER, STRING, TRUE, FALSE, NIL, L_PAREN, DUMMY, PLUS, MINUS, NOT);
+    // Tokens that can start a comparison (Bp)
+    private static final EnumSet<TokenKind> COMPARISON_START =
+            EnumSet.of(IDENTIFIER, INTEGER, STRING, TRUE, FALSE, NIL, L_PAREN, DUMMY, PLUS, MINUS);
+    // Tokens that can start an operand (At, R, Rn)
+    private static final EnumSet<TokenKind> OPERAND_START =
+            EnumSet.of(IDENTIFIER, INTEGER, STRING, TRUE, FALSE, NIL, L_PAREN, DUMMY);
+
+    // Tokens that may follow each production, from the outermost inwards
+    private static final EnumSet<TokenKind> EW_FOLLOW = EnumSet.of(EOF, R_PAREN, AND, WITHIN, IN);
+    private static final EnumSet<TokenKind> T_FOLLOW = union(EW_FOLLOW, WHERE);
+    private static final EnumSet<TokenKind> TA_FOLLOW = union(T_FOLLOW, COMMA);
+    private static final EnumSet<TokenKind> TC_FOLLOW = union(TA_FOLLOW, BAR, AUG);
+    private static final EnumSet<TokenKind> B_FOLLOW = union(TC_FOLLOW, ARROW);
+    private static final EnumSet<TokenKind> BT_FOLLOW = union(B_FOLLOW, OR);
+    private static final EnumSet<TokenKind> BP_FOLLOW = union(BT_FOLLOW, AMPERSAND);
+    private static final EnumSet<TokenKind> A_FOLLOW = union(BP_FOLLOW, GR, GREATER, GE, GREATER_EQUAL, LS, LESS,
+            LE, LESS_EQUAL, EQ, NE);
+    private static final EnumSet<TokenKind> AT_FOLLOW = union(A_FOLLOW, PLUS, MINUS);
+    private static final EnumSet<TokenKind> AF_FOLLOW = union(AT_FOLLOW, TIMES, DIVIDE, POWER);
+    private static final EnumSet<TokenKind> D_FOLLOW = EnumSet.of(IN, R_PAREN);
+
     List<Token> tokens;
-    private Stack<ASTNode> stack;
+    private int cursor;     // Index of the next token to consume, tokens are never removed from the list
+    private ArrayStack<ASTNode> stack;
 
     public Parser(List<Token> tokenList) {
         this.tokens = tokenList;
-        this.stack = new Stack<ASTNode>();
+        this.cursor = 0;
+        this.stack = new ArrayStack<ASTNode>();
     }
 
     public AST buildAst() throws ParserException{
         E();
-        ensureValueIn(peek(), "EOF");
+        expect(EOF);
         return (new AST(stack.pop()));
     }
 
     // Support methods:
     private Token peek() {
-        /* peek at the first token on the list */
-        if (tokens.size() == 0) {
+        /* peek at the next unconsumed token */
+        if (cursor >= tokens.size()) {
             throw new RuntimeException("Tokenizer error. EOF not found");
         }
-        return tokens.get(0);
+        return tokens.get(cursor);
     }
 
-    private boolean ValueIn(Token token, String... values) {
-        // check if token's value is one of the expected values
-        for (String val : values) {
-            if (token.getValue().equals(val)) {
-                return true;
-            }
+    private Token next() {
+        /* consume the next token by moving the cursor past it */
+        Token token = peek();
+        cursor++;
+        return token;
+    }
+
+    private static EnumSet<TokenKind> union(EnumSet<TokenKind> kinds, TokenKind... more) {
+        EnumSet<TokenKind> result = EnumSet.copyOf(kinds);
+        for (TokenKind kind : more) {
+            result.add(kind);
         }
-        return false;
+        return result;
     }
 
-    private void ensureValueIn(Token token, String... values) {
-        // ensure token's value matches one of the expected values, else throw
+    private boolean is(TokenKind kind) {
+        // check if the next token is of the given kind
+        return peek().getKind() == kind;
+    }
 
-        if (!ValueIn(token, values)) {
-            throw new ParserException("Expected :" + String.join(" / ", values) +
-                    " but found \"" + token.getValue() + "\"");
-        }
+    private boolean isIn(EnumSet<TokenKind> kinds) {
+        // check if the next token is of one of the given kinds
+        return kinds.contains(peek().getKind());
     }
 
-    private void ensureTypeIn(Token token, String... types) {
-        // ensure token's type matches one of the expected types, else throw
-        if (!TypeIn(token, types)) {
-            throw new ParserException("Expected type: " + String.join(" / ", types) +
-                    " but found \"" + token.getType() + "\"");
+    private Token expect(TokenKind kind) {
+        // consume the next token if it is of the given kind, else throw
+        Token token = peek();
+        if (token.getKind() != kind) {
+            throw new ParserException("Expected :" + kind.describe() + " but found \"" + token.getValue() + "\"");
         }
+        cursor++;
+        return token;
     }
 
-    private boolean TypeIn(Token token, String... types) {
-        // check if token's type is one of the expected types
-        for (String type : types) {
-            if (token.getType().equals(type)) {
-                return true;
+    private void ensureIn(EnumSet<TokenKind> kinds) {
+        // ensure the next token is of one of the expected kinds, else throw
+        Token token = peek();
+        if (!kinds.contains(token.getKind())) {
+            StringJoiner expected = new StringJoiner(" / ");
+            for (TokenKind kind : kinds) {
+                expected.add(kind.describe());
             }
+            throw new ParserException("Expected :" + expected + " but found \"" + token.getValue() + "\"");
         }
-        return false;
     }
 
     private void buildTree(String type, int n) {
@@ -100,36 +141,33 @@ public class Parser {
             result = nextResult;
             operators--;
         }
-        stack.add(result);
+        stack.push(result);
     }
 
     // Recursive Parser processes:
     private void E() {
         Token next = peek();
-        if (next.getValue().equals("let")) {
+        if (next.getKind() == LET) {
             // E -> 'let' D in E => ’let’
-            tokens.remove(0);
+            next();
             D();
-            ensureValueIn(peek(), "in");
-            tokens.remove(0);
+            expect(IN);
             E();
             buildTree("let", 2);
-        } else if (next.getValue().equals("fn")) {
+        } else if (next.getKind() == FN) {
             // E -> 'fn' Vb+ '.' E => ’lambda’
-            tokens.remove(0);
+            next();
             Vb();
             int N = 1;
-            while (TypeIn(peek(), "IDENTIFIER") || ValueIn(peek(), "(")) {
+            while (is(IDENTIFIER) || is(L_PAREN)) {
                 Vb();
                 N++;
             }
-            ensureValueIn(peek(), ".");
-            tokens.remove(0);
+            expect(DOT);
             E();
             buildTree("lambda", N + 1);
 
-        } else if (TypeIn(next, "IDENTIFIER", "INTEGER", "STRING") ||
-                ValueIn(next, "true", "false", "nil", "(", "dummy", "+", "-", "not")) {
+        } else if (EXPRESSION_START.contains(next.getKind())) {
             // E -> Ew
             Ew();
         } else {
@@ -139,17 +177,16 @@ public class Parser {
 
     private void Ew() {
         Token next = peek();
-        if (TypeIn(next, "IDENTIFIER", "INTEGER", "STRING") ||
-                ValueIn(next, "true", "false", "nil", "(", "dummy", "+", "-", "not")) {
+        if (EXPRESSION_START.contains(next.getKind())) {
             T();
-            if (ValueIn(peek(), "where")) {
+            if (is(WHERE)) {
                 // Ew -> T where Dr => where
-                tokens.remove(0);
+                next();
                 Dr();
                 buildTree("where", 2);
             } else {
                 // Ew -> T
-                ensureValueIn(peek(), "EOF", ")", "and", "within", "in");
+                ensureIn(EW_FOLLOW);
             }
         } else {
             throw new ParserException("Parse failed at: " + next.getValue());
@@ -158,40 +195,39 @@ public class Parser {
 
     private void T() {
         Ta();
-        if (ValueIn(peek(), ",")) {
+        if (is(COMMA)) {
             // T -> Ta (, Ta)+
-            tokens.remove(0);
+            next();
             Ta();
             int N = 2;
-            while (ValueIn(peek(), ",")) {
-                tokens.remove(0);
+            while (is(COMMA)) {
+                next();
                 Ta();
                 N++;
             }
             buildTree("tau", N);
-            ensureValueIn(peek(), "where", "EOF", ")", "and", "within", "in");
+            ensureIn(T_FOLLOW);
         }
         // else: T -> Ta
 
     }
 
     private void Ta() {
-        if (TypeIn(peek(), "IDENTIFIER", "INTEGER", "STRING") ||
-                ValueIn(peek(), "true", "false", "nil", "(", "dummy", "+", "-", "not")) {
+        if (isIn(EXPRESSION_START)) {
             Tc();
-            if (ValueIn(peek(), "aug")) {
+            if (is(AUG)) {
                 // Ta -> Ta aug Tc
-                tokens.remove(0);
+                next();
                 Tc();
                 buildTree("aug", 2);
-                while (ValueIn(peek(), "aug")) {
-                    tokens.remove(0);
+                while (is(AUG)) {
+                    next();
                     Tc();
                     buildTree("aug", 2);
                 }
             }
             // Ta -> Tc
-            ensureValueIn(peek(), ",", "where", "EOF", ")", "and", "within", "in");
+            ensureIn(TA_FOLLOW);
 
         } else {
             throw new ParserException("Parse failed at: " + peek().getValue());
@@ -199,20 +235,18 @@ public class Parser {
     }
 
     private void Tc() {
-        if (TypeIn(peek(), "IDENTIFIER", "INTEGER", "STRING") ||
-                ValueIn(peek(), "true", "false", "nil", "(", "dummy", "+", "-", "not")) {
+        if (isIn(EXPRESSION_START)) {
             B();
-            if (ValueIn(peek(), "->")) {
+            if (is(ARROW)) {
                 // Tc -> B -> Tc ’|’ Tc
-                tokens.remove(0);
+                next();
                 Tc();
-                ensureValueIn(peek(), "|");
-                tokens.remove(0);
+                expect(BAR);
                 Tc();
                 buildTree("->", 3);
             } else {
                 // Tc -> B
-                ensureValueIn(peek(), "|", "aug", ",", "where", "EOF", ")", "and", "within", "in");
+                ensureIn(TC_FOLLOW);
             }
         } else {
             throw new ParserException("Parse failed at: " + peek().getValue());
@@ -220,22 +254,21 @@ public class Parser {
     }
 
     private void B() {
-        if (TypeIn(peek(), "IDENTIFIER", "INTEGER", "STRING") ||
-                ValueIn(peek(), "true", "false", "nil", "(", "dummy", "+", "-", "not")) {
+        if (isIn(EXPRESSION_START)) {
             Bt();
-            if (ValueIn(peek(), "or")) {
+            if (is(OR)) {
                 // B -> B or Bt
-                tokens.remove(0);
+                next();
                 Bt();
                 buildTree("or", 2);
-                while (ValueIn(peek(), "or")) {
-                    tokens.remove(0);
+                while (is(OR)) {
+                    next();
                     Bt();
                     buildTree("or", 2);
                 }
             }
             // B -> Bt
-            ensureValueIn(peek(), "->", "|", "aug", ",", "where", "EOF", ")", "and", "within", "in");
+            ensureIn(B_FOLLOW);
 
         } else {
             throw new ParserException("Parse failed at: " + peek().getValue());
@@ -243,22 +276,21 @@ public class Parser {
     }
 
     private void Bt() {
-        if (TypeIn(peek(), "IDENTIFIER", "INTEGER", "STRING") ||
-                ValueIn(peek(), "true", "false", "nil", "(", "dummy", "+", "-", "not")) {
+        if (isIn(EXPRESSION_START)) {
             Bs();
-            if (ValueIn(peek(), "&")) {
+            if (is(AMPERSAND)) {
                 // Bt -> Bt & Bs
-                tokens.remove(0);
+                next();
                 Bs();
                 buildTree("&", 2);
-                while (ValueIn(peek(), "&")) {
-                    tokens.remove(0);
+                while (is(AMPERSAND)) {
+                    next();
                     Bs();
                     buildTree("&", 2);
                 }
             }
             // Bt -> Bs
-            ensureValueIn(peek(), "or", "->", "|", "aug", ",", "where", "EOF", ")", "and", "within", "in");
+            ensureIn(BT_FOLLOW);
 
         } else {
             throw new ParserException("Parse failed at: " + peek().getValue());
@@ -267,9 +299,9 @@ public class Parser {
     }
 
     private void Bs() {
-        if (ValueIn(peek(), "not")) {
+        if (is(NOT)) {
             // Bs -> not Bp
-            tokens.remove(0);
+            next();
             Bp();
             buildTree("not", 1);
         } else {
@@ -279,53 +311,52 @@ public class Parser {
     }
 
     private void Bp() {
-        if (TypeIn(peek(), "IDENTIFIER", "INTEGER", "STRING") ||
-                ValueIn(peek(), "true", "false", "nil", "(", "dummy", "+", "-")) {
+        if (isIn(COMPARISON_START)) {
             A();
-            switch (peek().getValue()) {
-                case "gr": // Bp ->A(’gr’ | ’>’ ) A
-                case ">":
-                    tokens.remove(0);
+            switch (peek().getKind()) {
+                case GR: // Bp ->A(’gr’ | ’>’ ) A
+                case GREATER:
+                    next();
                     A();
                     buildTree("gr", 2);
                     break;
 
-                case "ge":
-                case ">=":// Bp -> A (’ge’ | ’>=’) A
-                    tokens.remove(0);
+                case GE:
+                case GREATER_EQUAL:// Bp -> A (’ge’ | ’>=’) A
+                    next();
                     A();
                     buildTree("ge", 2);
                     break;
 
-                case "ls":
-                case "<":// Bp -> A (’ls’ | ’<’) A
-                    tokens.remove(0);
+                case LS:
+                case LESS:// Bp -> A (’ls’ | ’<’) A
+                    next();
                     A();
                     buildTree("ls", 2);
                     break;
 
-                case "le":
-                case "<=":// Bp -> A (’le’ | ’<=’) A
-                    tokens.remove(0);
+                case LE:
+                case LESS_EQUAL:// Bp -> A (’le’ | ’<=’) A
+                    next();
                     A();
                     buildTree("le", 2);
                     break;
 
-                case "eq":// Bp -> A ’eq’ A
-                    tokens.remove(0);
+                case EQ:// Bp -> A ’eq’ A
+                    next();
                     A();
                     buildTree("eq", 2);
                     break;
 
-                case "ne":// Bp -> A ’ne’ A
-                    tokens.remove(0);
+                case NE:// Bp -> A ’ne’ A
+                    next();
                     A();
                     buildTree("ne", 2);
                     break;
 
                 default:
                     // Bp -> A
-                    ensureValueIn(peek(), "&", "or", "->", "|", "aug", ",", "where", "EOF", ")", "and", "within", "in");
+                    ensureIn(BP_FOLLOW);
             }
 
         } else {
@@ -334,50 +365,47 @@ public class Parser {
     }
 
     private void A() {
-        if (ValueIn(peek(), "-")) {
+        if (is(MINUS)) {
             // A -> - At => neg
-            tokens.remove(0);
+            next();
             At();
             buildTree("neg", 1);
         } else {
-            if (ValueIn(peek(), "+")) {
+            if (is(PLUS)) {
                 // A -> + At
-                tokens.remove(0);
+                next();
             }
             At();
         }
-        while (ValueIn(peek(), "+", "-")) {
-            if (ValueIn(peek(), "+")) {// A -> A + At
-                tokens.remove(0);
+        while (is(PLUS) || is(MINUS)) {
+            if (is(PLUS)) {// A -> A + At
+                next();
                 At();
                 buildTree("+", 2);
             } else { // A -> A - At
-                tokens.remove(0);
+                next();
                 At();
                 buildTree("-", 2);
             }
         }
-        ensureValueIn(peek(), "gr", ">", "ge", ">=", "ls", "<", "le", "<=", "eq", "ne", "&", "or", "->", "|", "aug",
-                ",", "where", "EOF", ")", "and", "within", "in");
+        ensureIn(A_FOLLOW);
     }
 
     private void At() {
-        if (TypeIn(peek(), "IDENTIFIER", "INTEGER", "STRING") ||
-                ValueIn(peek(), "true", "false", "nil", "(", "dummy")) {
+        if (isIn(OPERAND_START)) {
             Af();
-            while (ValueIn(peek(), "*", "/")) {
-                if (ValueIn(peek(), "*")) {// At -> At * Af
-                    tokens.remove(0);
+            while (is(TIMES) || is(DIVIDE)) {
+                if (is(TIMES)) {// At -> At * Af
+                    next();
                     Af();
                     buildTree("*", 2);
                 } else { // At -> At / Af
-                    tokens.remove(0);
+                    next();
                     Af();
                     buildTree("/", 2);
                 }
             }
-            ensureValueIn(peek(), "+", "-", "gr", ">", "ge", ">=", "ls", "<", "le", "<=", "eq", "ne", "&", "or", "->",
-                    "|", "aug", ",", "where", "EOF", ")", "and", "within", "in");
+            ensureIn(AT_FOLLOW);
         } else {
             throw new ParserException("Parse failed at: " + peek().getValue());
         }
@@ -386,8 +414,8 @@ public class Parser {
     private void Af() {
         Ap();
         int N = 0;
-        while (ValueIn(peek(), "**")) {
-            tokens.remove(0);
+        while (is(POWER)) {
+            next();
             Ap();
             buildTree("**", 2);
             N++;
@@ -395,28 +423,23 @@ public class Parser {
         if (N > 1) {
             rightAsTree(N);
         }
-        ensureValueIn(peek(), "*", "/", "**", "+", "-", "gr", ">", "ge", ">=", "ls", "<", "le", "<=", "eq", "ne", "&",
-                "or", "->", "|", "aug", ",", "where", "EOF", ")", "and", "within", "in");
+        ensureIn(AF_FOLLOW);
     }
 
     private void Ap() {
         R();
-        while (ValueIn(peek(), "@")) {
-            tokens.remove(0);
-            ensureTypeIn(peek(), "IDENTIFIER");
-            stack.push(new LeafNode("IDENTIFIER", tokens.remove(0).getValue()));
+        while (is(AT)) {
+            next();
+            identifierLeaf(expect(IDENTIFIER));
             R();
             buildTree("@", 3);
         }
-        ensureValueIn(peek(), "*", "/", "**", "+", "-", "gr", ">", "ge", ">=", "ls", "<", "le", "<=", "eq", "ne", "&",
-                "or", "->", "|", "aug", ",", "where", "EOF", ")", "and", "within", "in");
+        ensureIn(AF_FOLLOW);
     }
 
     private void R() {
         Rn();
-        while(TypeIn(peek(), "IDENTIFIER", "INTEGER", "STRING") || 
-        ValueIn(peek(), "true", "false", "nil", "(", "dummy")
-        ){
+        while (isIn(OPERAND_START)) {
             // R -> R Rn => gamma
             Rn();
             buildTree("gamma", 2);
@@ -424,49 +447,62 @@ public class Parser {
     }
 
     private void Rn() {
-        if (TypeIn(peek(),"IDENTIFIER","INTEGER","STRING")) {
-            stack.push(new LeafNode(peek().getType(), peek().getValue()));
-            tokens.remove(0);
-        } else if (ValueIn(peek(), "true", "false", "nil", "dummy")){
-            stack.push(new LeafNode(peek().getValue().toUpperCase(), peek().getValue()));
-            tokens.remove(0);
-        }
-        else if(ValueIn(peek(), "(")){
-            // Rn -> (E)
-            tokens.remove(0);
-            E();
-            ensureValueIn(tokens.remove(0), ")");
-        }
-        else{
-            throw new ParserException("Parse failed at: " + peek().getValue());
+        Token next = peek();
+        switch (next.getKind()) {
+            case IDENTIFIER:
+                identifierLeaf(next());
+                break;
+
+            case INTEGER:
+            case STRING:
+                stack.push(new LeafNode(next.getType(), next.getValue()));
+                next();
+                break;
+
+            case TRUE:
+            case FALSE:
+            case NIL:
+            case DUMMY:
+                stack.push(new LeafNode(next.getValue().toUpperCase(), next.getValue()));
+                next();
+                break;
+
+            case L_PAREN:
+                // Rn -> (E)
+                next();
+                E();
+                expect(R_PAREN);
+                break;
+
+            default:
+                throw new ParserException("Parse failed at: " + next.getValue());
         }
-        
     }
 
     private void D() {
         Da();
-        if (ValueIn(peek(), "within")) {
+        if (is(WITHIN)) {
             // D -> Da within D
             int N = 0;
-            while (ValueIn(peek(), "within")) {
-                tokens.remove(0);
+            while (is(WITHIN)) {
+                next();
                 Da();
                 buildTree("within", 2);
                 N++;
             }
             rightAsTree(N);
         } else {
-            ensureValueIn(peek(), "in",")");
+            ensureIn(D_FOLLOW);
         }
     }
 
     private void Da() {
         Dr();
-        if (ValueIn(peek(), "and")) {
+        if (is(AND)) {
             // Da -> (Dr and Dr)+
             int N = 1;
-            while (ValueIn(peek(), "and")) {
-                tokens.remove(0);
+            while (is(AND)) {
+                next();
                 Dr();
                 N++;
             }
@@ -475,8 +511,8 @@ public class Parser {
     }
 
     private void Dr() {
-        if (ValueIn(peek(), "rec")) {
-            tokens.remove(0);
+        if (is(REC)) {
+            next();
             Db();
             buildTree("rec", 1);
         } else {
@@ -485,32 +521,32 @@ public class Parser {
     }
 
     private void Db() {
-        if (ValueIn(peek(), "(")) {
+        if (is(L_PAREN)) {
             // Db - > ( D )
-            tokens.remove(0);
+            next();
             D();
-            ensureValueIn(tokens.remove(0), ")");
-        } else if (TypeIn(peek(), "IDENTIFIER")){
-            if (tokens.size() == 1) {
+            expect(R_PAREN);
+        } else if (is(IDENTIFIER)){
+            if (cursor + 1 >= tokens.size()) {
                 throw new RuntimeException("Tokenizer error. EOF not found");
             }
-            Token lookahead2 = tokens.get(1);//look at 2nd token to select the rule
-            if (ValueIn(lookahead2, "=",",")) {
+            TokenKind lookahead2 = tokens.get(cursor + 1).getKind();//look at 2nd token to select the rule
+            if (lookahead2 == EQUALS || lookahead2 == COMMA) {
                 // Db -> V1 '=' E
                 V1();
-                ensureValueIn(tokens.remove(0),"=");
+                expect(EQUALS);
                 E();
                 buildTree("=", 2);
             } else {
                 // ’<IDENTIFIER>’ Vb+ ’=’ E => fcn_form
-                stack.push(new LeafNode("IDENTIFIER", tokens.remove(0).getValue()));
+                identifierLeaf(next());
                 Vb();
                 int N=2;
-                while (TypeIn(peek(), "IDENTIFIER","L_PAREN")) {
+                while (is(IDENTIFIER) || is(L_PAREN)) {
                     Vb();
                     N++;
                 }
-                ensureValueIn(tokens.remove(0),"=");
+                expect(EQUALS);
                 E();
                 buildTree("fcn_form", N+1);
             }
@@ -520,19 +556,19 @@ public class Parser {
     }
 
     private void Vb() {
-        if (TypeIn(peek(), "IDENTIFIER")) {
+        if (is(IDENTIFIER)) {
             // Vb -> <IDENTIFIER>
-            stack.push(new LeafNode("IDENTIFIER", tokens.remove(0).getValue()));
-        } else if(ValueIn(peek(), "(")){
-            tokens.remove(0);
-            if (ValueIn(peek(), ")")) {
+            identifierLeaf(next());
+        } else if(is(L_PAREN)){
+            next();
+            if (is(R_PAREN)) {
                 // Vb -> ()
-                tokens.remove(0);
+                next();
                 stack.push(new LeafNode("()", ""));
-            } else if(TypeIn(peek(), "IDENTIFIER")){
+            } else if(is(IDENTIFIER)){
                 // Vb -> (V1)
                 V1();
-                ensureValueIn(tokens.remove(0), ")");
+                expect(R_PAREN);
             }
             else{
                 throw new ParserException("Parse failed at: " + peek().getValue());
@@ -544,16 +580,20 @@ public class Parser {
 
     private void V1() {
         // V1 -> ’<IDENTIFIER>’ list ’,’
-        stack.push(new LeafNode("IDENTIFIER", tokens.remove(0).getValue()));
-        if (ValueIn(peek(), ",")) {
+        identifierLeaf(next());
+        if (is(COMMA)) {
             int N = 1;
-            while (ValueIn(peek(), ",")) {
-                tokens.remove(0);
-                ensureTypeIn(peek(), "IDENTIFIER");
-                stack.push(new LeafNode("IDENTIFIER", tokens.remove(0).getValue()));
+            while (is(COMMA)) {
+                next();
+                identifierLeaf(expect(IDENTIFIER));
                 N++;
             }
             buildTree("comma", N);
         }
     }
+
+    private void identifierLeaf(Token identifier) {
+        /* pushes a leaf for an identifier, keeping the symbol id of its name */
+        stack.push(new LeafNode("IDENTIFIER", identifier.getValue(), identifier.getSymbol()));
+    }
 }
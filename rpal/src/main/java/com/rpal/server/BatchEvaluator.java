@@ -0,0 +1,144 @@
+package com.rpal.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.rpal.cache.ProgramCache;
+import com.rpal.cse.Builtins;
+import com.rpal.cse.CSE;
+import com.rpal.cse.CSNode;
+import com.rpal.io.MemorySink;
+import com.rpal.parser.ParserException;
+
+/*
+ * Runs many programs concurrently, one virtual thread each.
+ * Programs are prepared once (see prepare) and their control structures are shared by every run: each run
+ * gets a CSE machine and an output sink of its own, and machines never modify control structures.
+ * Preparing a program walks its trees recursively, so it is done on the calling thread. A run only needs
+ * the CSE machine, which keeps its stacks on the heap, so it fits in the small stack of a virtual thread.
+ * Each run is cancelled once it runs past its timeout, so a program that never ends cannot hold up the batch.
+ */
+public class BatchEvaluator {
+    private static final ScheduledThreadPoolExecutor TIMER = newTimer();     // Cancels the runs that pass their timeout
+
+    /*
+     * A program ready to run: its control structures, or the syntax error that prevented building them
+     */
+    public static final class Program {
+        private final String name;
+        private final List<List<CSNode>> deltas;    // null if the program has a syntax error
+        private final String syntaxError;
+        private final Builtins builtins;            // Registry the control structures were built with
+
+        private Program(String name, List<List<CSNode>> deltas, String syntaxError, Builtins builtins) {
+            this.name = name;
+            this.deltas = deltas;
+            this.syntaxError = syntaxError;
+            this.builtins = builtins;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /*
+     * Parses a program and builds its control structures
+     */
+    public static Program prepare(String name, String source) {
+        return prepare(name, source, Builtins.standard());
+    }
+
+    /*
+     * Parses a program calling the built-ins of the given registry, and builds its control structures
+     */
+    public static Program prepare(String name, String source, Builtins builtins) {
+        try {
+            return new Program(name, ProgramCache.compile(source, builtins), null, builtins);
+        } catch (ParserException e) {
+            return new Program(name, null, e.getMessage(), builtins);
+        }
+    }
+
+    /*
+     * Runs one program in a machine of its own, with the server's default timeout
+     */
+    public static Evaluation run(Program program) {
+        return run(program, RpalServer.DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /*
+     * Runs one program in a machine of its own, cancelling it once it has run for timeoutMillis
+     */
+    public static Evaluation run(Program program, long timeoutMillis) {
+        if (program.deltas == null) {
+            return new Evaluation(Evaluation.Status.SYNTAX_ERROR, "", program.syntaxError);
+        }
+        CSE machine = new CSE(program.deltas, program.builtins);
+        ScheduledFuture<?> timeout = TIMER.schedule(machine::cancel, timeoutMillis, TimeUnit.MILLISECONDS);
+        Evaluation evaluation = Evaluator.execute(machine, new MemorySink(Evaluator.MAX_OUTPUT_BYTES));
+        // a program the timer cancelled stopped with an error, unless it finished first
+        if (!timeout.cancel(false) && evaluation.getStatus() == Evaluation.Status.FAILED) {
+            return new Evaluation(Evaluation.Status.TIMEOUT, evaluation.getOutput(),
+                    "Evaluation timed out after " + timeoutMillis + " ms");
+        }
+        return evaluation;
+    }
+
+    /*
+     * Runs every program concurrently, with the server's default timeout each,
+     * and returns their evaluations in the same order. A program may appear several times in the list.
+     */
+    public static List<Evaluation> runAll(List<Program> programs) {
+        return runAll(programs, RpalServer.DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /*
+     * Runs every program concurrently, each for at most timeoutMillis from when its run starts
+     */
+    public static List<Evaluation> runAll(List<Program> programs, long timeoutMillis) {
+        List<Future<Evaluation>> runs = new ArrayList<Future<Evaluation>>(programs.size());
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Program program : programs) {
+                runs.add(threads.submit(() -> run(program, timeoutMillis)));
+            }
+        }
+        // every run is done once the executor is closed
+        List<Evaluation> evaluations = new ArrayList<Evaluation>(runs.size());
+        for (Future<Evaluation> run : runs) {
+            evaluations.add(resultOf(run));
+        }
+        return evaluations;
+    }
+
+    /*
+     * Timer thread that does not keep the JVM alive, and forgets the timeouts of the runs that finished in time
+     */
+    private static ScheduledThreadPoolExecutor newTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "rpal-batch-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private static Evaluation resultOf(Future<Evaluation> run) {
+        try {
+            return run.get();
+        } catch (ExecutionException e) {
+            return new Evaluation(Evaluation.Status.INTERNAL_ERROR, "", String.valueOf(e.getCause()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Evaluation(Evaluation.Status.INTERNAL_ERROR, "", "Interrupted");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.rpal.server;
+
+/*
+ * Outcome of evaluating one program: how it ended, what it printed, and the error message if it failed
+ */
+public class Evaluation {
+    public enum Status {
+        OK,                 // The program ran to the end
+        SYNTAX_ERROR,       // The program could not be parsed
+        FAILED,             // The CSE machine stopped with an error
+        TIMEOUT,            // The program ran longer than it was allowed to
+        INTERNAL_ERROR      // The interpreter itself failed
+    }
+
+    private final Status status;
+    private final String output;        // Everything the program printed, up to where it stopped
+    private final String message;       // Error message, empty if the status is OK
+
+    public Evaluation(Status status, String output, String message) {
+        this.status = status;
+        this.output = output;
+        this.message = message;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,160 @@
+package com.rpal.server;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.rpal.cache.ProgramCache;
+import com.rpal.cse.Builtins;
+import com.rpal.cse.CSE;
+import com.rpal.cse.CSE_Exception;
+import com.rpal.cse.CSNode;
+import com.rpal.io.MemorySink;
+import com.rpal.io.OutputLimitException;
+import com.rpal.parser.ParserException;
+
+/*
+ * Evaluates programs given as source text, each in a CSE machine of its own with its output captured in memory.
+ * Programs are parsed and run on worker threads, and are cancelled once they run past their timeout. Workers have
+ * a large stack, as parsing, standardizing and generating control structures walk trees recursively (the CSE machine
+ * itself keeps its stacks on the heap). Workers are reused, so a long lived evaluator runs warmed up code,
+ * and the control structures of the programs it has seen recently are kept in memory (see ProgramCache).
+ * What a program prints is capped, so that one request cannot fill the heap every other request shares.
+ */
+public class Evaluator implements AutoCloseable {
+    public static final int MAX_OUTPUT_BYTES = 16 << 20;  // Most a program may print, well within a response frame
+    private static final long WORKER_STACK_SIZE = 256L << 20;
+    private static final long CANCEL_GRACE_MILLIS = 1000;  // How long a timed out program is given to stop
+
+    /*
+     * One evaluation, shared by the thread waiting for it and the worker running it.
+     * Both read and write it under its lock, so a program whose timeout passes before its machine
+     * exists never starts, and one already running is cancelled.
+     */
+    private static final class Job {
+        private final MemorySink out = new MemorySink(MAX_OUTPUT_BYTES);   // What the program printed
+        private CSE machine;                                // Machine running the program (null until it is made)
+        private boolean cancelled;                          // Set once the timeout has passed
+    }
+
+    private final long defaultTimeoutMillis;        // Timeout of requests that do not give one
+    private final ExecutorService workers;
+    private final Builtins builtins;                // Built-ins the programs can call
+    private final ProgramCache cache;
+
+    public Evaluator(long defaultTimeoutMillis) {
+        this(defaultTimeoutMillis, Builtins.standard());
+    }
+
+    /*
+     * Evaluator of programs calling the built-ins of the given registry
+     */
+    public Evaluator(long defaultTimeoutMillis, Builtins builtins) {
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.builtins = builtins;
+        this.cache = new ProgramCache(ProgramCache.DEFAULT_MEMORY_ENTRIES, builtins);
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread worker = new Thread(null, task, "rpal-eval-" + count.incrementAndGet(), WORKER_STACK_SIZE);
+            worker.setDaemon(true);
+            return worker;
+        };
+        this.workers = Executors.newCachedThreadPool(factory);
+    }
+
+    /*
+     * Evaluates a program, waiting at most timeoutMillis for it (the default timeout if not positive)
+     */
+    public Evaluation evaluate(String source, long timeoutMillis) {
+        long timeout = (timeoutMillis > 0) ? timeoutMillis : defaultTimeoutMillis;
+        Job job = new Job();
+
+        Future<Evaluation> result = workers.submit(() -> run(source, job));
+        try {
+            return result.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            String output = cancel(job, result);
+            return new Evaluation(Evaluation.Status.TIMEOUT, output, "Evaluation timed out after " + timeout + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            return new Evaluation(Evaluation.Status.INTERNAL_ERROR, "", "Interrupted");
+        } catch (ExecutionException e) {
+            return new Evaluation(Evaluation.Status.INTERNAL_ERROR, "", String.valueOf(e.getCause()));
+        }
+    }
+
+    /*
+     * Stops a program that ran past its timeout, and returns what it printed until then.
+     * The program stops at its next lambda application, or does not start if it was still being loaded.
+     */
+    private static String cancel(Job job, Future<Evaluation> result) {
+        synchronized (job) {
+            job.cancelled = true;
+            if (job.machine != null) {
+                job.machine.cancel();
+            }
+        }
+        try {
+            // once the worker has returned, nothing writes to the sink any more
+            return result.get(CANCEL_GRACE_MILLIS, TimeUnit.MILLISECONDS).getOutput();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // the output is still being written, it cannot be read safely
+        }
+        result.cancel(true);
+        return "";
+    }
+
+    private Evaluation run(String source, Job job) {
+        synchronized (job) {
+            if (job.cancelled) {
+                return new Evaluation(Evaluation.Status.TIMEOUT, "", "Evaluation cancelled");
+            }
+        }
+        List<List<CSNode>> deltas;
+        try {
+            deltas = cache.load(source);
+        } catch (ParserException e) {
+            return new Evaluation(Evaluation.Status.SYNTAX_ERROR, "", e.getMessage());
+        }
+
+        CSE cse = new CSE(deltas, builtins);
+        synchronized (job) {
+            if (job.cancelled) {
+                return new Evaluation(Evaluation.Status.TIMEOUT, "", "Evaluation cancelled");
+            }
+            job.machine = cse;
+        }
+        return execute(cse, job.out);
+    }
+
+    /*
+     * Runs a program in the given machine, printing to the given sink.
+     * A program printing more than the sink holds fails, with what fitted as its output.
+     */
+    static Evaluation execute(CSE cse, MemorySink out) {
+        cse.setOutput(out);
+        try {
+            cse.runCSE();
+        } catch (CSE_Exception | OutputLimitException e) {
+            return new Evaluation(Evaluation.Status.FAILED, out.toString(), e.getMessage());
+        }
+        return new Evaluation(Evaluation.Status.OK, out.toString(), "");
+    }
+
+    public ProgramCache getCache() {
+        return cache;
+    }
+
+    public void close() {
+        workers.shutdownNow();
+    }
+}
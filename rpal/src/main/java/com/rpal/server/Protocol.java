@@ -0,0 +1,92 @@
+package com.rpal.server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Framing of the requests and responses exchanged with the server. All integers are big-endian.
+ *
+ *   request:  int timeout (ms, 0 for the server's default), int length, length bytes of UTF-8 program source
+ *   response: byte status (see Evaluation.Status), then two strings, each an int length and that many
+ *             bytes of UTF-8: what the program printed, and the error message (empty on success)
+ */
+public final class Protocol {
+    public static final int MAX_STRING_BYTES = 64 << 20;       // Largest string of a frame: source, output or message
+
+    private Protocol() {
+    }
+
+    /*
+     * A request as read from the stream
+     */
+    public static final class Request {
+        public final int timeoutMillis;
+        public final String source;
+
+        public Request(int timeoutMillis, String source) {
+            this.timeoutMillis = timeoutMillis;
+            this.source = source;
+        }
+    }
+
+    /*
+     * Reads the next request, or returns null if the stream ends before one starts
+     */
+    public static Request readRequest(DataInputStream in) throws IOException {
+        int timeout;
+        try {
+            timeout = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        return new Request(timeout, readString(in));
+    }
+
+    public static void writeRequest(DataOutputStream out, Request request) throws IOException {
+        out.writeInt(request.timeoutMillis);
+        writeString(out, request.source);
+        out.flush();
+    }
+
+    public static Evaluation readResponse(DataInputStream in) throws IOException {
+        int code = in.readUnsignedByte();
+        Evaluation.Status[] statuses = Evaluation.Status.values();
+        if (code >= statuses.length) {
+            throw new IOException("Unknown status: " + code);
+        }
+        Evaluation.Status status = statuses[code];
+        String output = readString(in);
+        String message = readString(in);
+        return new Evaluation(status, output, message);
+    }
+
+    public static void writeResponse(DataOutputStream out, Evaluation evaluation) throws IOException {
+        out.writeByte(evaluation.getStatus().ordinal());
+        writeString(out, evaluation.getOutput());
+        writeString(out, evaluation.getMessage());
+        out.flush();
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new IOException("Bad frame length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        // the reader would reject it, so it is not sent
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IOException("String too long for a frame: " + bytes.length);
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,68 @@
+package com.rpal.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+ * Long lived interpreter serving evaluation requests (see Protocol), so that JVM start up and warm up are paid once.
+ * Requests are read either from a stream pair (standard input and output) or from the connections to a
+ * Unix domain socket, each connection being served by a thread of its own. Requests on one connection
+ * are answered in order.
+ */
+public class RpalServer {
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+    private final Evaluator evaluator;
+
+    public RpalServer(Evaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /*
+     * Answers the requests read from a stream until it ends
+     */
+    public void serve(InputStream input, OutputStream output) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+        Protocol.Request request;
+        while ((request = Protocol.readRequest(in)) != null) {
+            Protocol.writeResponse(out, evaluator.evaluate(request.source, request.timeoutMillis));
+        }
+    }
+
+    /*
+     * Listens on a Unix domain socket at the given path (replacing a stale socket file) until the thread is interrupted
+     */
+    public void listen(Path socketPath) throws IOException {
+        Files.deleteIfExists(socketPath);
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            while (!Thread.currentThread().isInterrupted()) {
+                SocketChannel client = server.accept();
+                Thread handler = new Thread(() -> {
+                    try (SocketChannel connection = client) {
+                        serve(Channels.newInputStream(connection), Channels.newOutputStream(connection));
+                    } catch (IOException e) {
+                        // the client went away, nothing to answer
+                    }
+                }, "rpal-connection");
+                handler.setDaemon(true);
+                handler.start();
+            }
+        } finally {
+            Files.deleteIfExists(socketPath);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.rpal.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * JFR event recorded once a program has run, with the counters of every phase
+ */
+@Name("com.rpal.Evaluation")
+@Label("RPAL Evaluation")
+@Category("RPAL")
+@Description("Counters of a complete RPAL run")
+class EvaluationEvent extends Event {
+    @Label("Tokens")
+    long tokens;
+    @Label("AST Nodes")
+    long astNodes;
+    @Label("Deltas")
+    long deltas;
+
+    @Label("Rule 1 Steps")
+    long rule1;
+    @Label("Rule 2 Steps")
+    long rule2;
+    @Label("Rule 3 Steps")
+    long rule3;
+    @Label("Rule 4 Steps")
+    long rule4;
+    @Label("Rule 5 Steps")
+    long rule5;
+    @Label("Rule 6 Steps")
+    long rule6;
+    @Label("Rule 7 Steps")
+    long rule7;
+    @Label("Rule 8 Steps")
+    long rule8;
+    @Label("Rule 9 Steps")
+    long rule9;
+    @Label("Rule 10 Steps")
+    long rule10;
+    @Label("Rule 11 Steps")
+    long rule11;
+    @Label("Rule 12 Steps")
+    long rule12;
+    @Label("Rule 13 Steps")
+    long rule13;
+
+    @Label("Peak Control Depth")
+    long peakControlDepth;
+    @Label("Peak Stack Depth")
+    long peakStackDepth;
+    @Label("Environments")
+    long environments;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+}
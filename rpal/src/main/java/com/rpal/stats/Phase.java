@@ -0,0 +1,25 @@
+package com.rpal.stats;
+
+/*
+ * Phases a program goes through, from source text to result
+ */
+public enum Phase {
+    CACHE("cache"),                 // only with -cache
+    LOAD("load"),                   // only with -run-compiled
+    LEX("lex"),
+    PARSE("parse"),
+    STANDARDIZE("standardize"),
+    CONTROL_STRUCTURES("control_structures"),
+    COMPILE("compile"),             // only with -compile
+    EVALUATE("evaluate");
+
+    private final String key;       // Name of the phase in metric keys and reports
+
+    Phase(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
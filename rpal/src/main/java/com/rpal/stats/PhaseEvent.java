@@ -0,0 +1,24 @@
+package com.rpal.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * JFR event recorded for each phase of a run, its duration being the wall time of the phase
+ */
+@Name("com.rpal.Phase")
+@Label("RPAL Phase")
+@Category("RPAL")
+@Description("One phase of running an RPAL program")
+class PhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+}
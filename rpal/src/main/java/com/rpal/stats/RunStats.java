@@ -0,0 +1,285 @@
+package com.rpal.stats;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.rpal.cse.CSE;
+import com.rpal.util.Allocations;
+
+import jdk.jfr.FlightRecorder;
+
+/*
+ * Measurements of one run of a program: wall time and heap allocated by each phase, the size of what each
+ * phase produced, and the work done by the CSE machine.
+ * A phase is measured between start() and stop(); each stopped phase is also recorded as a JFR event
+ * (com.rpal.Phase), and record(CSE) records the totals as one more (com.rpal.Evaluation).
+ * Events are only created while Flight Recorder is running, as loading it takes longer than most programs run.
+ * asMap() gives every counter under a stable key, for scraping.
+ */
+public class RunStats {
+    public static final int RULES = 13;
+
+    private final long[] phaseNanos = new long[Phase.values().length];     // Wall time of each phase
+    private final long[] phaseBytes = new long[Phase.values().length];     // Heap allocated during each phase
+
+    private final boolean active;       // Whether anything is measured at all
+
+    private Phase current;              // Phase being measured (null if none)
+    private long startNanos;            // When the current phase started
+    private long startBytes;            // Bytes allocated by this thread when the current phase started
+    private PhaseEvent event;           // JFR event of the current phase
+
+    private long tokens;                // Tokens scanned, not counting the end of file
+    private long astNodes;              // Nodes of the abstract syntax tree
+    private long deltas;                // Control structures generated
+    private final long[] ruleSteps = new long[RULES + 1];  // Steps of each CSE rule, indexed by rule number
+    private long peakControlDepth;      // Largest depth of the control
+    private long peakStackDepth;        // Largest depth of the value stack
+    private long environments;          // Environments created
+    private long cacheHits;             // Programs found in the compiled-program cache (with -cache)
+    private long cacheMisses;           // Programs looked up in the cache and built from source
+
+    public RunStats() {
+        this(true);
+    }
+
+    private RunStats(boolean active) {
+        this.active = active;
+    }
+
+    /*
+     * Stats that measure nothing, for runs nobody looks at: start, stop and record do nothing
+     */
+    public static RunStats inactive() {
+        return new RunStats(false);
+    }
+
+    /*
+     * Starts measuring a phase, stopping the one being measured if any
+     */
+    public void start(Phase phase) {
+        if (!active) {
+            return;
+        }
+        if (current != null) {
+            stop();
+        }
+        current = phase;
+        if (FlightRecorder.isInitialized()) {
+            event = new PhaseEvent();
+            event.phase = phase.getKey();
+            event.begin();
+        }
+        startBytes = Allocations.currentThread();
+        startNanos = System.nanoTime();
+    }
+
+    /*
+     * Stops measuring the current phase
+     */
+    public void stop() {
+        if (current == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - startNanos;
+        long bytes = Allocations.currentThread() - startBytes;
+        phaseNanos[current.ordinal()] += nanos;
+        phaseBytes[current.ordinal()] += bytes;
+
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.allocatedBytes = bytes;
+                event.commit();
+            }
+        }
+        current = null;
+        event = null;
+    }
+
+    /*
+     * Tells whether Flight Recorder is running, in which case runs are worth measuring even if no report is asked for
+     */
+    public static boolean isRecording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    public void setTokens(long tokens) {
+        this.tokens = tokens;
+    }
+
+    public void setAstNodes(long astNodes) {
+        this.astNodes = astNodes;
+    }
+
+    public void setDeltas(long deltas) {
+        this.deltas = deltas;
+    }
+
+    public void setCache(long hits, long misses) {
+        this.cacheHits = hits;
+        this.cacheMisses = misses;
+    }
+
+    /*
+     * Takes the counters of the machine that ran the program, and records the run as a JFR event.
+     * With allocation tracking on, the machine counts the bytes allocated by the thread the program ran on,
+     * which is not this one for compiled code.
+     */
+    public void record(CSE machine) {
+        if (!active) {
+            return;
+        }
+        for (int rule = 1; rule <= RULES; rule++) {
+            ruleSteps[rule] = machine.getRuleSteps(rule);
+        }
+        peakControlDepth = machine.getPeakControlDepth();
+        peakStackDepth = machine.getPeakStackDepth();
+        environments = machine.getEnvCounter();
+        phaseBytes[Phase.EVALUATE.ordinal()] = Math.max(phaseBytes[Phase.EVALUATE.ordinal()], machine.getAllocatedBytes());
+
+        if (!FlightRecorder.isInitialized()) {
+            return;
+        }
+        EvaluationEvent evaluation = new EvaluationEvent();
+        if (evaluation.shouldCommit()) {
+            evaluation.tokens = tokens;
+            evaluation.astNodes = astNodes;
+            evaluation.deltas = deltas;
+            evaluation.rule1 = ruleSteps[1];
+            evaluation.rule2 = ruleSteps[2];
+            evaluation.rule3 = ruleSteps[3];
+            evaluation.rule4 = ruleSteps[4];
+            evaluation.rule5 = ruleSteps[5];
+            evaluation.rule6 = ruleSteps[6];
+            evaluation.rule7 = ruleSteps[7];
+            evaluation.rule8 = ruleSteps[8];
+            evaluation.rule9 = ruleSteps[9];
+            evaluation.rule10 = ruleSteps[10];
+            evaluation.rule11 = ruleSteps[11];
+            evaluation.rule12 = ruleSteps[12];
+            evaluation.rule13 = ruleSteps[13];
+            evaluation.peakControlDepth = peakControlDepth;
+            evaluation.peakStackDepth = peakStackDepth;
+            evaluation.environments = environments;
+            evaluation.allocatedBytes = getAllocatedBytes();
+            evaluation.commit();
+        }
+    }
+
+    public long getNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public long getAllocatedBytes(Phase phase) {
+        return phaseBytes[phase.ordinal()];
+    }
+
+    /*
+     * Bytes allocated by all phases together
+     */
+    public long getAllocatedBytes() {
+        long total = 0;
+        for (long bytes : phaseBytes) {
+            total += bytes;
+        }
+        return total;
+    }
+
+    public long getTokens() {
+        return tokens;
+    }
+
+    public long getAstNodes() {
+        return astNodes;
+    }
+
+    public long getDeltas() {
+        return deltas;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public long getRuleSteps(int rule) {
+        return ruleSteps[rule];
+    }
+
+    /*
+     * Steps of all CSE rules together
+     */
+    public long getSteps() {
+        long total = 0;
+        for (long steps : ruleSteps) {
+            total += steps;
+        }
+        return total;
+    }
+
+    public long getPeakControlDepth() {
+        return peakControlDepth;
+    }
+
+    public long getPeakStackDepth() {
+        return peakStackDepth;
+    }
+
+    public long getEnvironments() {
+        return environments;
+    }
+
+    /*
+     * Every counter by name, in a fixed order: phase.<phase>.nanos and phase.<phase>.bytes for each phase,
+     * then tokens, ast.nodes, deltas, cse.rule<n>.steps, cse.steps, cse.control.peak, cse.stack.peak,
+     * cse.environments and allocated.bytes
+     */
+    public Map<String, Long> asMap() {
+        Map<String, Long> metrics = new LinkedHashMap<String, Long>();
+        for (Phase phase : Phase.values()) {
+            metrics.put("phase." + phase.getKey() + ".nanos", getNanos(phase));
+            metrics.put("phase." + phase.getKey() + ".bytes", getAllocatedBytes(phase));
+        }
+        metrics.put("tokens", tokens);
+        metrics.put("ast.nodes", astNodes);
+        metrics.put("deltas", deltas);
+        metrics.put("cache.hits", cacheHits);
+        metrics.put("cache.misses", cacheMisses);
+        for (int rule = 1; rule <= RULES; rule++) {
+            metrics.put("cse.rule" + rule + ".steps", ruleSteps[rule]);
+        }
+        metrics.put("cse.steps", getSteps());
+        metrics.put("cse.control.peak", peakControlDepth);
+        metrics.put("cse.stack.peak", peakStackDepth);
+        metrics.put("cse.environments", environments);
+        metrics.put("allocated.bytes", getAllocatedBytes());
+        return metrics;
+    }
+
+    /*
+     * Prints the counters as a human readable table
+     */
+    public void report(PrintStream out) {
+        out.println("Phase                   Time (ms)     Allocated (KB)");
+        for (Phase phase : Phase.values()) {
+            out.printf("  %-20s %10.3f %18d%n", phase.getKey(), getNanos(phase) / 1e6, getAllocatedBytes(phase) / 1024);
+        }
+        out.printf("Tokens               %d%n", tokens);
+        out.printf("AST nodes            %d%n", astNodes);
+        out.printf("Deltas               %d%n", deltas);
+        out.printf("Cache hits/misses    %d/%d%n", cacheHits, cacheMisses);
+        out.printf("CSE steps            %d%n", getSteps());
+        for (int rule = 1; rule <= RULES; rule++) {
+            out.printf("  rule %-2d            %d%n", rule, ruleSteps[rule]);
+        }
+        out.printf("Peak control depth   %d%n", peakControlDepth);
+        out.printf("Peak stack depth     %d%n", peakStackDepth);
+        out.printf("Environments         %d%n", environments);
+        out.printf("Allocated (KB)       %d%n", getAllocatedBytes() / 1024);
+    }
+}
@@ -0,0 +1,29 @@
+package com.rpal.util;
+
+import java.lang.management.ManagementFactory;
+
+/*
+ * Bytes allocated on the heap by the current thread, as counted by the JVM.
+ * Reads 0 on JVMs that do not count allocations per thread.
+ */
+public final class Allocations {
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private Allocations() {
+    }
+
+    public static long currentThread() {
+        return (THREADS != null) ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+}
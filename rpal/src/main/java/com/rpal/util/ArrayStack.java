@@ -0,0 +1,92 @@
+package com.rpal.util;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+ * Growable array-backed stack without synchronization.
+ * Push and pop only move an index (the array is doubled when full), so they allocate nothing.
+ * Iteration runs from the bottom of the stack to the top.
+ */
+public class ArrayStack<E> implements Iterable<E> {
+    private static final int INITIAL_CAPACITY = 32;
+
+    private Object[] elements;      // Stack contents, bottom at index 0
+    private int size;               // Number of elements on the stack
+    private int peak;               // Largest number of elements the stack has held
+
+    public ArrayStack() {
+        elements = new Object[INITIAL_CAPACITY];
+    }
+
+    public void push(E element) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        elements[size++] = element;
+        if (size > peak) {
+            peak = size;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public E pop() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        E top = (E) elements[--size];
+        elements[size] = null;          // do not keep popped elements alive
+        return top;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        return (E) elements[size - 1];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /*
+     * Largest number of elements the stack has held since it was created
+     */
+    public int peakSize() {
+        return peak;
+    }
+
+    public void clear() {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return (E) elements[next++];
+            }
+        };
+    }
+}
@@ -1,26 +1,55 @@
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 import java.util.List;
 
+import com.rpal.cache.MappedProgram;
+import com.rpal.cache.ProgramCache;
+import com.rpal.cache.ProgramWriter;
+import com.rpal.compile.CompileException;
+import com.rpal.compile.DeltaCompiler;
 import com.rpal.cse.CSE;
 import com.rpal.cse.CSE_Exception;
 import com.rpal.cse.CSNode;
+import com.rpal.cse.CompiledDelta;
 import com.rpal.lex.LexicalAnalyzer;
 import com.rpal.lex.Token;
 import com.rpal.parser.AST;
 import com.rpal.parser.Parser;
 import com.rpal.parser.ParserException;
+import com.rpal.server.Evaluator;
+import com.rpal.server.RpalServer;
+import com.rpal.stats.Phase;
+import com.rpal.stats.RunStats;
 
 public class myrpal {
     public static void main(String[] args) {
         // Check if a filename is given
         if (args.length < 1) {
-            System.out.println("Usage: java myrpal [-st] [-ast] <sourcefile>");
+            System.out.println("Usage: java myrpal [-st] [-ast] [-compile] [-stats] [-cache] [-emit] <sourcefile>");
+            System.out.println("       java myrpal [-compile] [-stats] -run-compiled <compiledfile>");
+            System.out.println("       java myrpal -server [socketpath]");
+            return;
+        }
+
+        // Serve evaluation requests on a Unix domain socket, or on standard input and output
+        if (args[0].equals("-server")) {
+            serve(args.length > 1 ? args[1] : null);
             return;
         }
         
         boolean astSwitch = false;
         boolean stSwitch = false;
+        boolean compileSwitch = false;
+        boolean statsSwitch = false;
+        boolean cacheSwitch = false;
+        boolean emitSwitch = false;
+        boolean runCompiledSwitch = false;
         // Read switches
         for (int i = 0; i < args.length - 1; i++) {
             switch (args[i]) {
@@ -30,12 +59,117 @@ public class myrpal {
                 case "-st":
                     stSwitch = true;
                     break;
+                case "-compile":
+                    compileSwitch = true;
+                    break;
+                case "-stats":
+                    statsSwitch = true;
+                    break;
+                case "-cache":
+                    cacheSwitch = true;
+                    break;
+                case "-emit":
+                    emitSwitch = true;
+                    break;
+                case "-run-compiled":
+                    runCompiledSwitch = true;
+                    break;
                 default:
                     System.out.println("Unknown option: " + args[i]);
             }
         }
         String filename = args[args.length - 1];
 
+        // Time, allocations and counters of each phase, reported with -stats (or recorded by Flight Recorder)
+        boolean measure = statsSwitch || RunStats.isRecording();
+        RunStats stats = measure ? new RunStats() : RunStats.inactive();
+
+        // With -run-compiled, the file holds control structures written by -emit
+        List<List<CSNode>> controlList = null;
+        if (runCompiledSwitch) {
+            stats.start(Phase.LOAD);
+            controlList = loadCompiled(filename);
+            stats.stop();
+            if (controlList == null) {
+                return;
+            }
+        }
+
+        // With -cache, a program run before skips the front end (which -ast and -st need to print the trees)
+        ProgramCache cache = null;
+        String cacheKey = null;
+        if (cacheSwitch && controlList == null && !astSwitch && !stSwitch) {
+            stats.start(Phase.CACHE);
+            try {
+                try (FileInputStream source = new FileInputStream(filename)) {
+                    cacheKey = ProgramCache.keyOf(source.readAllBytes());
+                }
+                cache = new ProgramCache(1, ProgramCache.defaultDirectory(), ProgramCache.DEFAULT_DISK_BYTES);
+                controlList = cache.get(cacheKey);
+            } catch (IOException e) {
+                // reported by the lexical analyzer, which fails to read the file as well
+            }
+            stats.stop();
+        }
+        if (controlList == null) {
+            controlList = controlStructures(filename, astSwitch, stSwitch, measure, stats);
+            if (controlList == null) {
+                return;
+            }
+            if (cache != null) {
+                stats.start(Phase.CACHE);
+                cache.put(cacheKey, controlList);
+                stats.stop();
+            }
+        }
+        stats.setDeltas(controlList.size());
+        if (cache != null) {
+            stats.setCache(cache.getMemoryHits() + cache.getDiskHits(), cache.getMisses());
+        }
+
+        // With -emit, the control structures are written next to the source instead of being run
+        if (emitSwitch) {
+            emit(controlList, filename + ".rpc");
+            return;
+        }
+
+        // Interpret, or run as JVM classes compiled from the control structures
+        CSE cse_machine = new CSE(controlList);
+        cse_machine.setTrackAllocations(measure);
+        try {
+            if (compileSwitch) {
+                stats.start(Phase.COMPILE);
+                CompiledDelta[] compiled = DeltaCompiler.compile(controlList);
+                stats.start(Phase.EVALUATE);
+                cse_machine.runCompiled(compiled);
+            } else {
+                stats.start(Phase.EVALUATE);
+                cse_machine.runCSE();
+            }
+        } catch (CSE_Exception e) {
+            System.out.println("Evaluation failed: \n"+e.getMessage());
+        } catch (CompileException e) {
+            System.out.println("Compilation failed: \n"+e.getMessage());
+        }
+        stats.stop();
+        stats.record(cse_machine);
+        System.out.println();
+
+        // Reported on the error stream so that the program's output is unchanged
+        if (statsSwitch) {
+            stats.report(System.err);
+        }
+    }
+
+    /*
+     * Lexes, parses and standardizes a program and generates its control structures,
+     * printing the trees if asked to and counting the AST nodes if the run is measured.
+     * Returns null after reporting an error.
+     */
+    private static List<List<CSNode>> controlStructures(String filename, boolean astSwitch, boolean stSwitch,
+            boolean measure, RunStats stats) {
+        stats.start(Phase.LEX);
+
         // Generate the lexical analyser targeting given file
         File file = new File(filename);
         LexicalAnalyzer lexicalAnalyzer;
@@ -43,16 +177,18 @@ public class myrpal {
             lexicalAnalyzer = new LexicalAnalyzer(file);
         } catch (FileNotFoundException e) {
             System.out.println("File is not found : "+filename);
-            return;
+            return null;
         } catch (Exception e) {
             System.out.println("Read Error Occured.");
-            return;
+            return null;
         }
 
         // Tokanize the input
         List<Token> tokenList = lexicalAnalyzer.getTokenList();
+        stats.setTokens(tokenList.size() - 1);
         
         // Build AST
+        stats.start(Phase.PARSE);
         Parser parser = new Parser(tokenList);
         AST tree;
         try {
@@ -60,30 +196,65 @@ public class myrpal {
         }
         catch (ParserException e) {
             System.out.println("Syntax Error : \n"+e.getMessage());
-            return;
+            return null;
         }
+        stats.stop();
         //Print if required
         if (astSwitch) {
             tree.print();
         }
+        if (measure) {
+            stats.setAstNodes(tree.countNodes());
+        }
         
         // Standardise AST
+        stats.start(Phase.STANDARDIZE);
         tree.standardize();
+        stats.stop();
         //Print if required
         if (stSwitch) {
             tree.print();
         }
 
         //Get Control Structures
+        stats.start(Phase.CONTROL_STRUCTURES);
         List<List<CSNode>> controlList = tree.getCS();
+        stats.stop();
+        return controlList;
+    }
 
-        // Interpret
-        CSE cse_machine = new CSE(controlList);
+    /*
+     * Maps a program written by -emit. Returns null after reporting an error.
+     */
+    private static List<List<CSNode>> loadCompiled(String filename) {
         try {
-            cse_machine.runCSE();
-        } catch (CSE_Exception e) {
-            System.out.println("Evaluation failed: \n"+e.getMessage());
+            return MappedProgram.open(Paths.get(filename));
+        } catch (NoSuchFileException e) {
+            System.out.println("File is not found : "+filename);
+        } catch (IOException e) {
+            System.out.println("Read Error Occured : "+e.getMessage());
+        }
+        return null;
+    }
+
+    private static void emit(List<List<CSNode>> controlList, String filename) {
+        try (OutputStream out = Files.newOutputStream(Paths.get(filename))) {
+            ProgramWriter.write(controlList, out);
+        } catch (IOException e) {
+            System.out.println("Write Error Occured : "+e.getMessage());
+        }
+    }
+
+    private static void serve(String socketPath) {
+        try (Evaluator evaluator = new Evaluator(RpalServer.DEFAULT_TIMEOUT_MILLIS)) {
+            RpalServer server = new RpalServer(evaluator);
+            if (socketPath != null) {
+                server.listen(Paths.get(socketPath));
+            } else {
+                server.serve(System.in, System.out);
+            }
+        } catch (IOException e) {
+            System.err.println("Server failed: " + e.getMessage());
         }
-        System.out.println();
     }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.rpal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.rpal.cse.Builtin;
+import com.rpal.cse.Builtins;
+import com.rpal.cse.CSE;
+import com.rpal.cse.CSE_Exception;
+import com.rpal.cse.CSNode;
+import com.rpal.cse.Identifier;
+import com.rpal.cse.Native;
+import com.rpal.io.MemorySink;
+
+public class MappedProgramTest {
+    private static final Path FIXTURES = Paths.get("src/main/java/test");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFixturesRunTheSameFromTheirBinaryForm() throws IOException {
+        for (String name : new String[] {"add", "conc.1", "defns.1", "fn3", "ftst", "pairs3", "picture", "rpal_01", "towers", "vectorsum"}) {
+            String source = new String(Files.readAllBytes(FIXTURES.resolve(name)), StandardCharsets.UTF_8);
+            List<List<CSNode>> deltas = ProgramCache.compile(source);
+            Path file = folder.getRoot().toPath().resolve(name + ".rpc");
+            Files.write(file, ProgramWriter.toBytes(deltas));
+
+            assertEquals(name, run(ProgramCache.compile(source)), run(MappedProgram.open(file)));
+        }
+    }
+
+    @Test
+    public void testMapsLargeFiles() throws IOException {
+        String text = "x".repeat(2 << 20);
+        Path file = folder.getRoot().toPath().resolve("large.rpc");
+        Files.write(file, ProgramWriter.toBytes(ProgramCache.compile("Print (Stem '" + text + "')")));
+
+        assertEquals("x", run(MappedProgram.open(file)));
+    }
+
+    @Test
+    public void testOnlyDecodesTheDeltasThatRun() throws IOException {
+        // delta 2 is the else branch, which never runs
+        List<List<CSNode>> deltas = ProgramCache.compile("Print (true -> 'yes' | 'no')");
+        byte[] bytes = ProgramWriter.toBytes(deltas);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int constantCount = buffer.getInt(8);
+        int elseStart = buffer.getInt(ProgramFormat.HEADER_SIZE + 4 * (constantCount + 1) + 4 * 2);
+        bytes[elseStart + 1] = 99;      // not a node tag
+
+        MappedProgram program = MappedProgram.wrap(ByteBuffer.wrap(bytes));
+        assertEquals("yes", run(program));
+        try {
+            program.get(2);
+            fail("damaged delta decoded");
+        } catch (CSE_Exception e) {
+            assertEquals("Damaged compiled program: unknown node tag 99", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testRejectsOtherVersions() {
+        byte[] bytes = ProgramWriter.toBytes(ProgramCache.compile("Print 1"));
+        bytes[5]++;
+        try {
+            MappedProgram.wrap(ByteBuffer.wrap(bytes));
+            fail("other version accepted");
+        } catch (IOException e) {
+            assertEquals("Unsupported compiled program version: " + (ProgramFormat.VERSION + 1), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testKeepsLargeIntegersAndStrings() throws IOException {
+        List<List<CSNode>> deltas = ProgramCache.compile("Print (123456789012345678901234567890 + 1, 'a\\tb', -5, Order nil)");
+        assertEquals("(123456789012345678901234567891, a\\tb, -5, 0)",
+                run(MappedProgram.wrap(ByteBuffer.wrap(ProgramWriter.toBytes(deltas)))));
+    }
+
+    @Test
+    public void testResolvesBuiltinsInTheGivenRegistry() throws IOException {
+        Builtins builtins = new Builtins();
+        Builtin twice = Native.integerToInteger("Twice", n -> 2 * n);
+        builtins.register(twice);
+        byte[] bytes = ProgramWriter.toBytes(ProgramCache.compile("Twice 4", builtins));
+
+        // the body of delta 0 is: gamma Twice 4
+        assertSame(twice, ((Identifier) MappedProgram.wrap(ByteBuffer.wrap(bytes), builtins).get(0).get(1)).getBuiltin());
+        assertNull(((Identifier) MappedProgram.wrap(ByteBuffer.wrap(bytes)).get(0).get(1)).getBuiltin());
+    }
+
+    private static String run(List<List<CSNode>> deltas) {
+        MemorySink out = new MemorySink();
+        CSE machine = new CSE(deltas);
+        machine.setOutput(out);
+        machine.runCSE();
+        return out.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package com.rpal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.rpal.cse.CSE;
+import com.rpal.cse.CSNode;
+import com.rpal.io.MemorySink;
+
+public class ProgramCacheTest {
+    private static final String TOWERS =
+            "let Towers (N, A, B, C) = Move (N, A, B, C)\n"
+            + "where rec Move (N, A, B, C) = N eq 1 -> (A, C) | (Move (N - 1, A, C, B) aug (A, C)) @Conc (Move (N - 1, B, A, C))\n"
+            + "where Conc x y = x\n"
+            + "in Print (Towers (3, 'a', 'b', 'c'), 12345678901234567890 + 1, 'tab\\t', true, nil, dummy)";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testKeyIsSha256OfSource() {
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", ProgramCache.keyOf(""));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", ProgramCache.keyOf("abc"));
+    }
+
+    @Test
+    public void testMemoryTierKeepsMostRecentlyUsed() {
+        ProgramCache cache = new ProgramCache(2);
+        List<List<CSNode>> first = cache.load("Print 1");
+        cache.load("Print 2");
+        assertSame(first, cache.load("Print 1"));
+        cache.load("Print 3");      // evicts Print 2, used less recently than Print 1
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(ProgramCache.keyOf("Print 1")));
+        assertNull(cache.get(ProgramCache.keyOf("Print 2")));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.getMemoryHits());
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void testDiskTierSurvivesTheCache() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        List<List<CSNode>> built = new ProgramCache(1, directory, ProgramCache.DEFAULT_DISK_BYTES).load(TOWERS);
+
+        ProgramCache later = new ProgramCache(1, directory, ProgramCache.DEFAULT_DISK_BYTES);
+        List<List<CSNode>> read = later.get(ProgramCache.keyOf(TOWERS));
+        assertNotNull(read);
+        assertEquals(1, later.getDiskHits());
+        assertEquals(run(built), run(read));
+        assertSame(read, later.get(ProgramCache.keyOf(TOWERS)));
+        assertEquals(1, later.getMemoryHits());
+    }
+
+    @Test
+    public void testDiskTierStaysWithinItsSize() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        ProgramCache cache = new ProgramCache(1, directory, 0);
+        cache.load("Print 1");
+        cache.load("Print 2");
+
+        assertEquals(0, countFiles(directory));
+        assertEquals(3, cache.getEvictions());      // two files, and Print 1 from memory
+    }
+
+    @Test
+    public void testDamagedFileIsAMiss() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        String key = ProgramCache.keyOf("Print 1");
+        Files.write(directory.resolve(key + ".cs"), new byte[] {1, 2, 3});
+
+        ProgramCache cache = new ProgramCache(1, directory, ProgramCache.DEFAULT_DISK_BYTES);
+        assertNull(cache.get(key));
+        assertEquals("1", run(cache.load("Print 1")));
+        assertNotNull(new ProgramCache(1, directory, ProgramCache.DEFAULT_DISK_BYTES).get(key));
+    }
+
+    private static String run(List<List<CSNode>> deltas) {
+        MemorySink out = new MemorySink();
+        CSE machine = new CSE(deltas);
+        machine.setOutput(out);
+        machine.runCSE();
+        return out.toString();
+    }
+
+    private static long countFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.rpal.compile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rpal.cse.Builtin;
+import com.rpal.cse.Builtins;
+import com.rpal.cse.CSE;
+import com.rpal.cse.CSNode;
+import com.rpal.cse.CompiledDelta;
+import com.rpal.lex.LexicalAnalyzer;
+import com.rpal.parser.AST;
+import com.rpal.parser.Parser;
+
+public class DeltaCompilerTest {
+    private static List<List<CSNode>> controlStructures(String source) {
+        AST tree = new Parser(new LexicalAnalyzer(source).getTokenList()).buildAst();
+        tree.standardize();
+        return tree.getCS();
+    }
+
+    // control structure generation recurses over the elements of a tuple, so large ones need a larger stack
+    private static List<List<CSNode>> largeControlStructures(String source) throws InterruptedException {
+        List<List<List<CSNode>>> result = new ArrayList<List<List<CSNode>>>();
+        Thread builder = new Thread(null, () -> result.add(controlStructures(source)), "builder", 1L << 28);
+        builder.start();
+        builder.join();
+        return result.get(0);
+    }
+
+    private static String interpret(String source) {
+        CSE machine = new CSE(controlStructures(source));
+        machine.runCSE();
+        return machine.getResult().getName();
+    }
+
+    private static String runCompiled(String source) {
+        List<List<CSNode>> deltas = controlStructures(source);
+        CSE machine = new CSE(deltas);
+        machine.runCompiled(DeltaCompiler.compile(deltas));
+        return machine.getResult().getName();
+    }
+
+    @Test
+    public void testDeltasAreLoadedAsHiddenClasses() {
+        List<List<CSNode>> deltas = controlStructures("let f x = x + 1 in f 2");
+        CompiledDelta[] compiled = DeltaCompiler.compile(deltas);
+
+        assertEquals(deltas.size(), compiled.length);
+        for (CompiledDelta delta : compiled) {
+            assertTrue(delta.getClass().isHidden());
+        }
+    }
+
+    @Test
+    public void testMatchesInterpreter() {
+        String[] programs = {
+            "let rec fact n = n eq 0 -> 1 | n * fact (n-1) in fact 25",
+            "let rec loop n acc = n eq 0 -> acc | loop (n-1) (acc + n) in loop 100000 0",
+            "let t = (1, 'two', true) in Order t + (Isstring (t 2) -> 10 | 20)",
+            "let f (x, y) = x ** y - y in f (2, 10)",
+            "let c = 'ab' @Conc 'cd' in Stern c",
+        };
+        for (String program : programs) {
+            assertEquals(program, interpret(program), runCompiled(program));
+        }
+    }
+
+    @Test
+    public void testLargeDeltasAreSplitOrInterpreted() throws InterruptedException {
+        // a flat tuple compiles to a single delta of one node more than it has elements
+        for (int elements : new int[] { 3000, 40000 }) {
+            StringBuilder source = new StringBuilder("Order (0");
+            for (int i = 1; i < elements; i++) {
+                source.append(", ").append(i);
+            }
+            source.append(")");
+            List<List<CSNode>> deltas = largeControlStructures(source.toString());
+            CSE machine = new CSE(deltas);
+            machine.runCompiled(DeltaCompiler.compile(deltas));
+
+            assertEquals(elements, machine.getResult().getIntValue());
+        }
+    }
+
+    @Test
+    public void testErrorOfCompiledCodeReachesTheCaller() {
+        OutOfMemoryError error = new OutOfMemoryError("Java heap space");
+        Builtins builtins = new Builtins();
+        builtins.register(new Builtin("Exhaust", 1) {
+            @Override
+            public CSNode apply(CSE machine, List<CSNode> given, CSNode last) {
+                throw error;
+            }
+        });
+        AST tree = new Parser(new LexicalAnalyzer("let f x = Exhaust x in f 1").getTokenList()).buildAst();
+        tree.standardize();
+        List<List<CSNode>> deltas = tree.getCS(builtins);
+
+        try {
+            new CSE(deltas, builtins).runCompiled(DeltaCompiler.compile(deltas));
+            fail("The program finished although its thread failed");
+        } catch (OutOfMemoryError e) {
+            assertSame(error, e);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.rpal.cse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rpal.io.MemorySink;
+import com.rpal.lex.LexicalAnalyzer;
+import com.rpal.parser.AST;
+import com.rpal.parser.Parser;
+
+public class CSETest {
+    private static String output(String source) {
+        AST tree = new Parser(new LexicalAnalyzer(source).getTokenList()).buildAst();
+        tree.standardize();
+        CSE machine = new CSE(tree.getCS());
+        MemorySink out = new MemorySink();
+        machine.setOutput(out);
+        machine.runCSE();
+        return out.toString();
+    }
+
+    private static CSNode evaluate(String source) {
+        return evaluate(source, Builtins.standard());
+    }
+
+    private static CSNode evaluate(String source, Builtins builtins) {
+        return run(source, builtins).getResult();
+    }
+
+    private static CSE run(String source, Builtins builtins) {
+        AST tree = new Parser(new LexicalAnalyzer(source).getTokenList()).buildAst();
+        tree.standardize();
+        CSE machine = new CSE(tree.getCS(builtins), builtins);
+        machine.runCSE();
+        return machine;
+    }
+
+    // a loop runs in constant space only if its tail calls leave nothing behind on either stack
+    private static void assertConstantSpace(CSE machine) {
+        assertTrue("peak control depth " + machine.getPeakControlDepth(), machine.getPeakControlDepth() < 50);
+        assertTrue("peak stack depth " + machine.getPeakStackDepth(), machine.getPeakStackDepth() < 50);
+    }
+
+    private static Builtin negation(String name) {
+        return new Builtin(name, 1) {
+            @Override
+            public CSNode apply(CSE machine, List<CSNode> given, CSNode last) {
+                return new IntegerValue(-last.getIntValue());
+            }
+        };
+    }
+
+    @Test
+    public void testTailRecursiveLoop() {
+        CSE machine = run("let rec loop n acc = n eq 0 -> acc | loop (n-1) (acc + n) in loop 200000 0", Builtins.standard());
+
+        assertEquals(20000100000L, machine.getResult().getIntValue());
+        assertConstantSpace(machine);
+    }
+
+    @Test
+    public void testTailCallThroughLocalFunction() {
+        CSE machine = run("let rec count n = n eq 0 -> 'done' | step n "
+                + "where step m = count (m-1) in count 50000", Builtins.standard());
+
+        assertEquals("done", machine.getResult().getName());
+        assertConstantSpace(machine);
+    }
+
+    @Test
+    public void testNonTailRecursion() {
+        CSE machine = run("let rec sum n = n eq 0 -> 0 | n + sum (n-1) in sum 1000", Builtins.standard());
+
+        assertEquals(500500L, machine.getResult().getIntValue());
+        // each pending addition keeps its frame, so the stacks grow with the recursion
+        assertTrue(machine.getPeakControlDepth() > 1000);
+    }
+
+    @Test
+    public void testCallerEnvironmentRestoredAfterCall() {
+        // after each call returns, y and z must again be looked up in the caller's environments
+        CSNode result = evaluate("let f x = x * 10 in let g y = (let z = f y in f z + z) + y in g 2 + g 3");
+
+        assertEquals(555L, result.getIntValue());
+    }
+
+    @Test
+    public void testStringsBuiltWithConcAndWalkedWithStern() {
+        // builds a 100000 character string one piece at a time, then counts its characters back with Stern
+        CSNode result = evaluate("let rec build n acc = n eq 0 -> acc | build (n-1) (acc @Conc 'ab') "
+                + "in let rec count s n = s eq '' -> n | count (Stern s) (n+1) "
+                + "in count (build 50000 '') 0");
+
+        assertEquals(100000L, result.getIntValue());
+    }
+
+    @Test
+    public void testStemAndSternOfConcatenation() {
+        CSNode result = evaluate("let s = ('RP' @Conc 'AL') @Conc ' interpreter' "
+                + "in (Stem (Stern s) @Conc Stern (Stern (Stern s))) @Conc Stem s");
+
+        assertEquals("PL interpreterR", result.getName());
+    }
+
+    @Test
+    public void testAugLeavesOriginalTupleUnchanged() {
+        CSNode result = evaluate("let t = nil aug 1 in let u = t aug 2 in let v = t aug 3 "
+                + "in Order t * 1000 + Order (nil aug 0) * 100 + u 2 * 10 + v 2");
+
+        assertEquals(1123L, result.getIntValue());
+    }
+
+    @Test
+    public void testTupleBuiltWithAugInLoop() {
+        CSNode result = evaluate("let rec mk n t = n eq 0 -> t | mk (n-1) (t aug n) "
+                + "in let t = mk 200000 nil in Order t + t 1 + t 200000");
+
+        assertEquals(400001L, result.getIntValue());
+    }
+
+    @Test
+    public void testConditionalFollowedBySibling() {
+        CSNode result = evaluate("let t = ((1 eq 1 -> 10 | 20) + 5, (false -> 1 | 2), 3) in t 1 + t 2 + t 3");
+
+        assertEquals(20L, result.getIntValue());
+    }
+
+    @Test
+    public void testPrintToSink() {
+        String printed = output("let x = Print 'a\\tb\\n' in Print (x, 2, true)");
+
+        assertEquals("a\tb" + System.lineSeparator() + "(a\\tb\\n, 2, true)", printed);
+    }
+
+    @Test
+    public void testIntegerOverflowMovesToBigInteger() {
+        assertBig("9223372036854775808", evaluate("9223372036854775807 + 1"));
+        assertBig("-9223372036854775809", evaluate("-9223372036854775807 - 2"));
+        assertBig("18446744073709551616", evaluate("4294967296 * 4294967296"));
+        assertBig("18446744073709551616", evaluate("2 ** 64"));
+        assertBig("36472996377170786403", evaluate("3 ** 41"));
+        assertBig("9223372036854775808", evaluate("(-9223372036854775807 - 1) * (-1)"));
+    }
+
+    @Test
+    public void testBigIntegerResultBackInLongRange() {
+        CSNode result = evaluate("(2 ** 64) - (2 ** 64) + 5");
+
+        assertTrue(result.fitsLong());
+        assertEquals(5L, result.getIntValue());
+        assertEquals(-9223372036854775808L, evaluate("(-2) ** 63").getIntValue());
+        assertEquals(4294967296L, evaluate("(2 ** 64) / (2 ** 32)").getIntValue());
+    }
+
+    @Test
+    public void testDivisionRoundsTowardsNegativeInfinity() {
+        assertEquals(-4L, evaluate("(-7) / 2").getIntValue());
+        assertEquals(-4L, evaluate("7 / (-2)").getIntValue());
+        assertEquals(-4L, evaluate("(-8) / 2").getIntValue());
+        assertEquals(3L, evaluate("(-7) / (-2)").getIntValue());
+        assertBig("-9223372036854775809", evaluate("(-(2 ** 64) - 1) / 2"));
+        assertBig("9223372036854775808", evaluate("(-9223372036854775807 - 1) / (-1)"));
+    }
+
+    @Test
+    public void testComparingLongWithBigInteger() {
+        assertSame(TruthValue.TRUE, evaluate("(2 ** 64) gr 5"));
+        assertSame(TruthValue.TRUE, evaluate("5 ls (2 ** 64)"));
+        assertSame(TruthValue.FALSE, evaluate("(2 ** 64) eq 0"));
+        assertSame(TruthValue.TRUE, evaluate("(2 ** 64) eq (2 ** 64)"));
+        assertSame(TruthValue.TRUE, evaluate("(2 ** 64) ne (2 ** 64 + 1)"));
+        assertSame(TruthValue.TRUE, evaluate("((2 ** 64) - (2 ** 64) + 5) eq 5"));
+    }
+
+    @Test
+    public void testNegationOfLongMinValue() {
+        assertBig("9223372036854775808", evaluate("-(-9223372036854775807 - 1)"));
+        assertEquals(Long.MIN_VALUE, evaluate("-(9223372036854775807 + 1)").getIntValue());
+    }
+
+    @Test
+    public void testHostBuiltinTakesArgumentsOneAtATime() {
+        Builtins builtins = new Builtins();
+        builtins.register(new Builtin("TestMax", 2) {
+            @Override
+            public CSNode apply(CSE machine, List<CSNode> given, CSNode last) {
+                return new IntegerValue(Math.max(given.get(0).getIntValue(), last.getIntValue()));
+            }
+        });
+        CSNode result = evaluate("let m = TestMax 7 in m 3 * 100 + m 9 * 10 + TestMax 2 1", builtins);
+
+        assertEquals(792L, result.getIntValue());
+    }
+
+    @Test
+    public void testBuiltinRegisteredAfterGeneration() {
+        AST tree = new Parser(new LexicalAnalyzer("TestNeg 5").getTokenList()).buildAst();
+        tree.standardize();
+        Builtins builtins = new Builtins();
+        CSE machine = new CSE(tree.getCS(builtins), builtins);
+        builtins.register(negation("TestNeg"));
+        machine.runCSE();
+
+        assertEquals(-5L, machine.getResult().getIntValue());
+    }
+
+    @Test
+    public void testUnregisteredNameCanBeRegisteredAgain() {
+        Builtins builtins = new Builtins();
+        builtins.register(negation("TestNeg"));
+
+        assertTrue(builtins.unregister("TestNeg"));
+        assertFalse(builtins.unregister("TestNeg"));
+        assertNull(builtins.lookUp("TestNeg"));
+        builtins.register(negation("TestNeg"));
+        assertEquals(-5L, evaluate("TestNeg 5", builtins).getIntValue());
+    }
+
+    @Test
+    public void testRegistriesAreSeparate() {
+        Builtins builtins = new Builtins();
+        builtins.register(negation("TestNeg"));
+
+        assertNull(Builtins.standard().lookUp("TestNeg"));
+        assertNull(new Builtins().lookUp("TestNeg"));
+        assertSame(Builtins.standard().lookUp("Stem"), builtins.lookUp("Stem"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testStandardBuiltinsCannotBeChanged() {
+        Builtins.standard().register(negation("TestNeg"));
+    }
+
+    private static void assertBig(String expected, CSNode result) {
+        assertFalse(result.fitsLong());
+        assertEquals(new BigInteger(expected), result.getBigValue());
+        assertEquals(expected, result.getName());
+    }
+}
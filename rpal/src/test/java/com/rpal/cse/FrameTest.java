@@ -0,0 +1,62 @@
+package com.rpal.cse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+public class FrameTest {
+    @Test
+    public void testLookUpByLexicalAddress() {
+        Frame env = Frame.root();
+        for (int i = 1; i <= 10000; i++) {
+            env = Frame.of(i, env, new IntegerValue(i));
+        }
+
+        assertEquals(10000, env.getNumber());
+        for (int depth = 0; depth < 10000; depth++) {
+            assertEquals(10000 - depth, env.lookUp(depth, 0).getIntValue());
+        }
+    }
+
+    @Test
+    public void testTupleBindsOneVariablePerElement() {
+        CSNode tuple = new TupleValue(Tuple.of(new CSNode[] {
+            new IntegerValue(1), new StringValue("two"), TruthValue.TRUE }));
+        Frame env = Frame.ofTuple(1, Frame.root(), tuple.getTuple());
+
+        assertEquals(1, env.get(0).getIntValue());
+        assertEquals("two", env.get(1).getName());
+        assertSame(TruthValue.TRUE, env.get(2));
+    }
+
+    @Test
+    public void testClosureKeepsTheEnvironmentItWasCreatedIn() {
+        Frame root = Frame.root();
+        Frame outer = Frame.of(1, root, new IntegerValue(7));
+        Closure closure = new Closure(new Lambda(new ArrayList<String>(), 1, false), outer);
+
+        // the environment the closure runs in has the closure's environment as parent
+        Frame inner = Frame.of(2, closure.getEnv(), new IntegerValue(8));
+
+        assertEquals(1, closure.getEnvno());
+        assertEquals(7, inner.lookUp(1, 0).getIntValue());
+        assertSame(root, inner.getParent().getParent());
+        assertNull(root.getParent());
+    }
+
+    @Test
+    public void testMarkerRestoresTheEnvironmentSavedInIt() {
+        Frame root = Frame.root();
+        Frame env = Frame.of(1, root, new IntegerValue(1));
+        EnvMarker marker = new EnvMarker(env, root);
+
+        assertEquals(1, marker.getEnvno());
+        assertEquals(0, marker.getPrevenv());
+        assertSame(root, marker.getPrev());
+        assertEquals(-1, new EnvMarker(root, null).getPrevenv());
+    }
+}
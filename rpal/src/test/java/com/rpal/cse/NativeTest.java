@@ -0,0 +1,100 @@
+package com.rpal.cse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rpal.lex.LexicalAnalyzer;
+import com.rpal.parser.AST;
+import com.rpal.parser.Parser;
+
+public class NativeTest {
+    private Builtins builtins;
+
+    @Before
+    public void registerNatives() {
+        builtins = new Builtins();
+        builtins.register(Native.integersToInteger("NativeMod", Math::floorMod));
+        builtins.register(Native.integerToTruthvalue("NativeIsEven", n -> n % 2 == 0));
+        builtins.register(Native.stringToString("NativeUpper", String::toUpperCase));
+        builtins.register(Native.stringToInteger("NativeLength", String::length));
+        builtins.register(Native.of("NativeFirst", args -> args.get(0).getTuple().get(0),
+                Native.Type.TUPLE));
+    }
+
+    private CSNode evaluate(String source) {
+        AST tree = new Parser(new LexicalAnalyzer(source).getTokenList()).buildAst();
+        tree.standardize();
+        CSE machine = new CSE(tree.getCS(builtins), builtins);
+        machine.runCSE();
+        return machine.getResult();
+    }
+
+    @Test
+    public void testIntegerNatives() {
+        CSNode result = evaluate("let rec sum n = n eq 0 -> 0 | (NativeIsEven n -> NativeMod n 7 | 0) + sum (n-1) "
+                + "in sum 20");
+
+        assertEquals(33L, result.getIntValue());
+    }
+
+    @Test
+    public void testPartialApplicationOfNative() {
+        CSNode result = evaluate("let m = NativeMod (-3) in m 5 * 10 + m 7");
+
+        assertEquals(24L, result.getIntValue());
+    }
+
+    @Test
+    public void testStringNatives() {
+        CSNode result = evaluate("NativeUpper ('rp' @Conc 'al'), NativeLength 'interpreter'");
+
+        assertEquals("RPAL", result.getTuple().get(0).getName());
+        assertEquals(11L, result.getTuple().get(1).getIntValue());
+    }
+
+    @Test
+    public void testNativeOnValues() {
+        CSNode result = evaluate("NativeFirst (true, 2)");
+
+        assertSame(TruthValue.TRUE, result);
+    }
+
+    @Test
+    public void testArgumentTypeChecked() {
+        assertFails("NativeMod 'a'", "Argument of NativeMod is not an integer");
+        assertFails("NativeMod 1 true", "Argument of NativeMod is not an integer");
+        assertFails("NativeLength 3", "Argument of NativeLength is not a string");
+        assertFails("NativeFirst 3", "Argument of NativeFirst is not a tuple");
+        assertFails("NativeMod 100000000000000000000 3", "Argument of NativeMod is too large : 100000000000000000000");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNameRegisteredOnce() {
+        builtins.register(Native.integerToInteger("NativeLength", n -> n));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStandardNameRegisteredOnce() {
+        builtins.register(Native.integerToInteger("Order", n -> n));
+    }
+
+    @Test
+    public void testNativesStayInTheirRegistry() {
+        assertNull(Builtins.standard().lookUp("NativeMod"));
+        assertNull(new Builtins().lookUp("NativeMod"));
+    }
+
+    private void assertFails(String source, String message) {
+        try {
+            evaluate(source);
+            fail(source + " should have failed");
+        } catch (CSE_Exception e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.rpal.cse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rpal.lex.LexicalAnalyzer;
+import com.rpal.parser.AST;
+import com.rpal.parser.Parser;
+
+public class ResolverTest {
+    private static List<List<CSNode>> deltas(String source) {
+        AST tree = new Parser(new LexicalAnalyzer(source).getTokenList()).buildAst();
+        tree.standardize();
+        return tree.getCS();
+    }
+
+    // the identifiers of all deltas, in delta order, as "name depth,slot"
+    private static List<String> addresses(String source) {
+        List<String> addresses = new ArrayList<String>();
+        for (List<CSNode> delta : deltas(source)) {
+            for (CSNode node : delta) {
+                if (node.getOpcode() == Opcode.IDENTIFIER) {
+                    addresses.add(node.getName() + " " + node.getDepth() + "," + node.getSlot());
+                }
+            }
+        }
+        return addresses;
+    }
+
+    @Test
+    public void testVariableOfEnclosingLambda() {
+        assertEquals(Arrays.asList("f 0,0", "x 1,0", "y 0,0"),
+                addresses("let x = 1 in let f y = x + y in f 2"));
+    }
+
+    @Test
+    public void testInnerBindingShadowsOuter() {
+        assertEquals(Arrays.asList("x 0,0"), addresses("let x = 1 in let x = 2 in x"));
+    }
+
+    @Test
+    public void testNameReboundInNestedLambda() {
+        // the argument x is the outer x, the x of the body is the inner one, y is one environment up
+        assertEquals(Arrays.asList("f 0,0", "x 1,0", "x 0,0", "y 1,0"),
+                addresses("let f x y = (fn x. x + y) x in f 1 2"));
+    }
+
+    @Test
+    public void testTupleBindingGivesOneSlotPerVariable() {
+        assertEquals(Arrays.asList("f 0,0", "c 0,2", "a 0,0"),
+                addresses("let f (a, b, c) = c - a in f (1, 2, 3)"));
+    }
+
+    @Test
+    public void testBetaBranchesShareTheEnclosingScope() {
+        // both branches see n at depth 0, the let inside the else branch adds one environment
+        assertEquals(Arrays.asList("f 0,0", "n 0,0", "n 0,0", "n 0,0", "m 0,0", "n 1,0"),
+                addresses("let f n = n eq 0 -> n | (let m = n in m + n) in f 3"));
+    }
+
+    @Test
+    public void testRecursiveFunctionFoundThroughItsEta() {
+        assertEquals(Arrays.asList("f 0,0", "n 0,0", "f 1,0", "n 0,0"),
+                addresses("let rec f n = n eq 0 -> 0 | f (n-1) in f 3"));
+    }
+
+    @Test
+    public void testUnboundNamesAreLeftToTheBuiltins() {
+        List<CSNode> body = deltas("let Order = 5 in Order + Stem z").get(1);
+
+        // a bound name hides the built-in of the same name
+        assertEquals(0, body.get(1).getDepth());
+        assertNull(((Identifier) body.get(1)).getBuiltin());
+        assertEquals("Stem", ((Identifier) body.get(3)).getBuiltin().getName());
+        assertEquals(-1, body.get(4).getDepth());
+    }
+}
@@ -0,0 +1,56 @@
+package com.rpal.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+public class ChannelSinkTest {
+    @Test
+    public void testEncodesUtf8() {
+        MemorySink sink = new MemorySink();
+        String text = "tuple (1, 'é') → 😀";
+        sink.print(text);
+        sink.print('!');
+
+        assertArrayEquals((text + "!").getBytes(StandardCharsets.UTF_8), sink.toByteArray());
+    }
+
+    @Test
+    public void testWritesWhenFullAndOnFlush() {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ChannelSink sink = ChannelSink.of(stream);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            String line = i + ", ";
+            sink.print(line);
+            expected.append(line);
+        }
+        // more than a buffer's worth has been written already, the rest only once flushed
+        int beforeFlush = stream.size();
+        sink.flush();
+
+        assertEquals(ChannelSink.DEFAULT_CAPACITY, beforeFlush);
+        assertEquals(expected.toString(), stream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWritesToFile() throws IOException {
+        Path file = Files.createTempFile("rpal", ".out");
+        try {
+            try (ChannelSink sink = ChannelSink.toFile(file)) {
+                sink.print("Hello, ");
+                sink.print("world", 0, 5);
+            }
+            assertEquals("Hello, world", Files.readString(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.rpal.lex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class LexicalAnalyzerTest {
+    @Test
+    public void testTokenKindsAndOffsets() {
+        List<Token> tokens = new LexicalAnalyzer("let x_1 = 42 in Print(x_1, 'a b')").getTokenList();
+
+        assertEquals("[<KEYWORD: let>, <IDENTIFIER: x_1>, <OPERATOR: =>, <INTEGER: 42>, <KEYWORD: in>, "
+                + "<IDENTIFIER: Print>, <L_PAREN: (>, <IDENTIFIER: x_1>, <COMMA: ,>, <STRING: 'a b'>, "
+                + "<R_PAREN: )>, <EOF: EOF>]", tokens.toString());
+        assertEquals(4, tokens.get(1).getStart());
+        assertEquals(7, tokens.get(1).getEnd());
+        assertEquals(27, tokens.get(9).getStart());
+        assertEquals(32, tokens.get(9).getEnd());
+    }
+
+    @Test
+    public void testCommentsAndOperators() {
+        List<Token> tokens = new LexicalAnalyzer("a->b|c +// note ' here\n-d**2").getTokenList();
+
+        assertEquals("[<IDENTIFIER: a>, <OPERATOR: ->>, <IDENTIFIER: b>, <OPERATOR: |>, <IDENTIFIER: c>, "
+                + "<OPERATOR: +>, <OPERATOR: ->, <IDENTIFIER: d>, <OPERATOR: **>, <INTEGER: 2>, <EOF: EOF>]",
+                tokens.toString());
+    }
+
+    @Test
+    public void testEscapedQuoteInString() {
+        List<Token> tokens = new LexicalAnalyzer("'it\\'s' @Conc '\\n'").getTokenList();
+
+        assertEquals("[<STRING: 'it\\'s'>, <OPERATOR: @>, <IDENTIFIER: Conc>, <STRING: '\\n'>, <EOF: EOF>]",
+                tokens.toString());
+    }
+
+    @Test
+    public void testKindsAndSymbols() {
+        LexicalAnalyzer lexer = new LexicalAnalyzer("let f x = x gr 1 -> f x | x ** 2 in f 3");
+        List<Token> tokens = lexer.getTokenList();
+
+        assertEquals(TokenKind.LET, tokens.get(0).getKind());
+        assertEquals(TokenKind.GR, tokens.get(5).getKind());
+        assertEquals(TokenKind.ARROW, tokens.get(7).getKind());
+        assertEquals(TokenKind.BAR, tokens.get(10).getKind());
+        assertEquals(TokenKind.POWER, tokens.get(12).getKind());
+        assertEquals(-1, tokens.get(0).getSymbol());
+
+        // every occurrence of a name gets the same id and the same string
+        Token f = tokens.get(1);
+        Token x = tokens.get(2);
+        assertEquals(f.getSymbol(), tokens.get(15).getSymbol());
+        assertEquals(x.getSymbol(), tokens.get(4).getSymbol());
+        assertSame(x.getValue(), tokens.get(11).getValue());
+        assertNotEquals(f.getSymbol(), x.getSymbol());
+        assertEquals("x", lexer.getSymbolTable().nameOf(x.getSymbol()));
+    }
+
+    @Test
+    public void testStreamingEndsWithEof() {
+        LexicalAnalyzer lexer = new LexicalAnalyzer("x");
+
+        assertEquals("IDENTIFIER", lexer.nextToken().getType());
+        assertEquals("EOF", lexer.nextToken().getType());
+        assertEquals("EOF", lexer.nextToken().getType());
+    }
+}
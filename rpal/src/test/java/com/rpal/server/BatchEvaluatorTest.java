@@ -0,0 +1,71 @@
+package com.rpal.server;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BatchEvaluatorTest {
+    private static final Path FIXTURES = Paths.get("src/main/java/test");
+
+    @Test
+    public void testSharedProgramsRunConcurrently() throws IOException {
+        List<String> names = new ArrayList<String>();
+        List<BatchEvaluator.Program> programs = new ArrayList<BatchEvaluator.Program>();
+        for (String name : Arrays.asList("add", "fn3", "pairs3", "picture", "towers", "vectorsum")) {
+            String source = new String(Files.readAllBytes(FIXTURES.resolve(name)), StandardCharsets.UTF_8);
+            BatchEvaluator.Program program = BatchEvaluator.prepare(name, source);
+            // every run of a program shares its control structures
+            for (int i = 0; i < 20; i++) {
+                names.add(name);
+                programs.add(program);
+            }
+        }
+
+        List<Evaluation> evaluations = BatchEvaluator.runAll(programs);
+        assertEquals(programs.size(), evaluations.size());
+        for (int i = 0; i < evaluations.size(); i++) {
+            String expected = new String(Files.readAllBytes(FIXTURES.resolve(names.get(i) + "_out")), StandardCharsets.UTF_8);
+            assertEquals(names.get(i), Evaluation.Status.OK, evaluations.get(i).getStatus());
+            assertEquals(names.get(i), expected.trim(), evaluations.get(i).getOutput().trim());
+        }
+    }
+
+    @Test
+    public void testFailuresStayWithTheirProgram() {
+        List<BatchEvaluator.Program> programs = Arrays.asList(
+                BatchEvaluator.prepare("ok", "Print (1, 2)"),
+                BatchEvaluator.prepare("syntax", "let x = in x"),
+                BatchEvaluator.prepare("failed", "Print 'before' @Conc 1"),
+                BatchEvaluator.prepare("ok", "Print 'after'"));
+
+        List<Evaluation> evaluations = BatchEvaluator.runAll(programs);
+        assertEquals(Evaluation.Status.OK, evaluations.get(0).getStatus());
+        assertEquals("(1, 2)", evaluations.get(0).getOutput());
+        assertEquals(Evaluation.Status.SYNTAX_ERROR, evaluations.get(1).getStatus());
+        assertEquals(Evaluation.Status.FAILED, evaluations.get(2).getStatus());
+        assertEquals("before", evaluations.get(2).getOutput());
+        assertEquals("after", evaluations.get(3).getOutput());
+    }
+
+    @Test(timeout = 10000)
+    public void testRunawayProgramTimesOut() {
+        List<BatchEvaluator.Program> programs = Arrays.asList(
+                BatchEvaluator.prepare("loop", "let x = Print 'started' in let rec f n = f n in f 1"),
+                BatchEvaluator.prepare("ok", "Print 'done'"));
+
+        List<Evaluation> evaluations = BatchEvaluator.runAll(programs, 200);
+        assertEquals(Evaluation.Status.TIMEOUT, evaluations.get(0).getStatus());
+        assertEquals("started", evaluations.get(0).getOutput());
+        assertEquals(Evaluation.Status.OK, evaluations.get(1).getStatus());
+        assertEquals("done", evaluations.get(1).getOutput());
+    }
+}
@@ -0,0 +1,125 @@
+package com.rpal.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class RpalServerTest {
+    @Test
+    public void testAnswersFramedRequestsInOrder() throws IOException {
+        ByteArrayOutputStream requests = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(requests);
+        Protocol.writeRequest(out, new Protocol.Request(0, "Print ('x = ', 6 * 7)"));
+        Protocol.writeRequest(out, new Protocol.Request(0, "let x = in x"));
+        Protocol.writeRequest(out, new Protocol.Request(0, "Print 'partial' @Conc 1"));
+
+        ByteArrayOutputStream responses = new ByteArrayOutputStream();
+        try (Evaluator evaluator = new Evaluator(RpalServer.DEFAULT_TIMEOUT_MILLIS)) {
+            new RpalServer(evaluator).serve(new ByteArrayInputStream(requests.toByteArray()), responses);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(responses.toByteArray()));
+        Evaluation first = Protocol.readResponse(in);
+        assertEquals(Evaluation.Status.OK, first.getStatus());
+        assertEquals("(x = , 42)", first.getOutput());
+        assertEquals(Evaluation.Status.SYNTAX_ERROR, Protocol.readResponse(in).getStatus());
+        Evaluation third = Protocol.readResponse(in);
+        assertEquals(Evaluation.Status.FAILED, third.getStatus());
+        assertEquals("partial", third.getOutput());
+        assertNull(Protocol.readRequest(in));
+    }
+
+    @Test
+    public void testOutputLimitEndsTheProgram() throws IOException {
+        String source = "let s = '" + "x".repeat(1000) + "' in "
+                + "let rec p n = n eq 0 -> 'done' | (fn x. p (n - 1)) (Print s) in p 20000";
+        ByteArrayOutputStream requests = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(requests);
+        Protocol.writeRequest(out, new Protocol.Request(0, source));
+        Protocol.writeRequest(out, new Protocol.Request(0, "Print 'next'"));
+
+        ByteArrayOutputStream responses = new ByteArrayOutputStream();
+        try (Evaluator evaluator = new Evaluator(RpalServer.DEFAULT_TIMEOUT_MILLIS)) {
+            new RpalServer(evaluator).serve(new ByteArrayInputStream(requests.toByteArray()), responses);
+        }
+
+        // the response is one the client can read, and the connection goes on
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(responses.toByteArray()));
+        Evaluation flooding = Protocol.readResponse(in);
+        assertEquals(Evaluation.Status.FAILED, flooding.getStatus());
+        assertEquals("Output limit exceeded", flooding.getMessage());
+        assertEquals(Evaluator.MAX_OUTPUT_BYTES, flooding.getOutput().length());
+        assertEquals("next", Protocol.readResponse(in).getOutput());
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownStatusRejected() throws IOException {
+        byte[] frame = { (byte) 200, 0, 0, 0, 0, 0, 0, 0, 0 };
+        Protocol.readResponse(new DataInputStream(new ByteArrayInputStream(frame)));
+    }
+
+    @Test
+    public void testRunawayProgramTimesOut() {
+        try (Evaluator evaluator = new Evaluator(RpalServer.DEFAULT_TIMEOUT_MILLIS)) {
+            Evaluation looping = evaluator.evaluate("let rec loop n = loop (n + 1) in loop 0", 200);
+            assertEquals(Evaluation.Status.TIMEOUT, looping.getStatus());
+
+            // the worker is free again for the next request
+            Evaluation next = evaluator.evaluate("Print (Order (1, 2, 3))", 0);
+            assertEquals(Evaluation.Status.OK, next.getStatus());
+            assertEquals("3", next.getOutput());
+        }
+    }
+
+    @Test
+    public void testTimeoutKeepsPartialOutput() {
+        try (Evaluator evaluator = new Evaluator(RpalServer.DEFAULT_TIMEOUT_MILLIS)) {
+            Evaluation looping = evaluator.evaluate(
+                    "let x = Print 'started' in let rec loop n = loop (n + 1) in loop 0", 200);
+
+            assertEquals(Evaluation.Status.TIMEOUT, looping.getStatus());
+            assertEquals("started", looping.getOutput());
+        }
+    }
+
+    @Test
+    public void testTimeoutDuringLoadingStopsTheProgram() throws InterruptedException {
+        // the timeout passes while the long prefix is still being parsed, before the machine exists
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            source.append("let x").append(i).append(" = ").append(i).append(" in ");
+        }
+        source.append("let rec loop n = loop (n + 1) in loop 0");
+
+        try (Evaluator evaluator = new Evaluator(RpalServer.DEFAULT_TIMEOUT_MILLIS)) {
+            Evaluation looping = evaluator.evaluate(source.toString(), 5);
+            assertEquals(Evaluation.Status.TIMEOUT, looping.getStatus());
+
+            // the worker goes back to waiting for requests instead of running the loop
+            long deadline = System.currentTimeMillis() + 5000;
+            while (workerRunning()) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail("The timed out program is still running");
+                }
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    private static boolean workerRunning() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("rpal-eval-") && thread.getState() == Thread.State.RUNNABLE) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,79 @@
+package com.rpal.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.rpal.cse.CSE;
+import com.rpal.cse.CSNode;
+import com.rpal.io.MemorySink;
+import com.rpal.lex.LexicalAnalyzer;
+import com.rpal.lex.Token;
+import com.rpal.parser.AST;
+import com.rpal.parser.Parser;
+
+public class RunStatsTest {
+    private static RunStats run(String source, RunStats stats) {
+        stats.start(Phase.LEX);
+        List<Token> tokens = new LexicalAnalyzer(source).getTokenList();
+        stats.setTokens(tokens.size() - 1);
+        stats.start(Phase.PARSE);
+        AST tree = new Parser(tokens).buildAst();
+        stats.stop();
+        stats.setAstNodes(tree.countNodes());
+        stats.start(Phase.STANDARDIZE);
+        tree.standardize();
+        stats.start(Phase.CONTROL_STRUCTURES);
+        List<List<CSNode>> deltas = tree.getCS();
+        stats.setDeltas(deltas.size());
+        stats.start(Phase.EVALUATE);
+        CSE machine = new CSE(deltas);
+        machine.setOutput(new MemorySink());
+        machine.setTrackAllocations(true);
+        machine.runCSE();
+        stats.stop();
+        stats.record(machine);
+        return stats;
+    }
+
+    @Test
+    public void testCountsStepsByRule() {
+        RunStats stats = run("let f (x, y) = x + y in f (1, 2)", new RunStats());
+
+        assertEquals(18, stats.getTokens());
+        assertEquals(3, stats.getDeltas());
+        assertEquals(5, stats.getRuleSteps(1));     // f, 1, 2, x, y
+        assertEquals(2, stats.getRuleSteps(2));     // the let's lambda and f
+        assertEquals(1, stats.getRuleSteps(4));     // let
+        assertEquals(2, stats.getRuleSteps(5));     // exits of f and env 0 (f is a tail call, the let is exited before it)
+        assertEquals(1, stats.getRuleSteps(6));     // +
+        assertEquals(1, stats.getRuleSteps(9));     // (1, 2)
+        assertEquals(1, stats.getRuleSteps(11));    // f applied to a pair
+        assertEquals(13, stats.getSteps());
+        assertEquals(2, stats.getEnvironments());
+        assertTrue(stats.getPeakStackDepth() > 0);
+        assertTrue(stats.getAllocatedBytes(Phase.EVALUATE) > 0);
+    }
+
+    @Test
+    public void testMetricsMap() {
+        Map<String, Long> metrics = run("Print (1, 2)", new RunStats()).asMap();
+
+        assertEquals(Long.valueOf(6), metrics.get("tokens"));
+        assertEquals(Long.valueOf(1), metrics.get("cse.rule9.steps"));
+        assertTrue(metrics.get("phase.evaluate.nanos") > 0);
+        assertTrue(metrics.containsKey("phase.compile.bytes"));
+    }
+
+    @Test
+    public void testInactiveStatsMeasureNothing() {
+        RunStats stats = run("Print (1, 2)", RunStats.inactive());
+
+        assertEquals(0, stats.getNanos(Phase.EVALUATE));
+        assertEquals(0, stats.getSteps());
+    }
+}